@@ -15,15 +15,19 @@ package org.openhab.binding.http.internal;
 import static org.openhab.binding.http.internal.HttpBindingConstants.THING_TYPE_URL;
 
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.openhab.binding.http.internal.http.UrlFetchCoordinator;
 import org.openhab.binding.http.internal.transform.CascadedValueTransformationImpl;
 import org.openhab.binding.http.internal.transform.NoOpValueTransformation;
 import org.openhab.binding.http.internal.transform.ValueTransformation;
 import org.openhab.binding.http.internal.transform.ValueTransformationProvider;
+import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
 import org.openhab.core.io.net.http.HttpClientFactory;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingTypeUID;
@@ -35,9 +39,13 @@ import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * The {@link HttpHandlerFactory} is responsible for creating things and thing
  * handlers.
@@ -49,12 +57,18 @@ import org.slf4j.LoggerFactory;
 public class HttpHandlerFactory extends BaseThingHandlerFactory
         implements ValueTransformationProvider, HttpClientProvider {
     private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Set.of(THING_TYPE_URL);
+    private static final String THING_HANDLER_THREADPOOL_NAME = "thingHandler";
     private final Logger logger = LoggerFactory.getLogger(HttpHandlerFactory.class);
 
     private final HttpClient secureClient;
     private final HttpClient insecureClient;
 
     private final HttpDynamicStateDescriptionProvider httpDynamicStateDescriptionProvider;
+    private final Set<HttpThingHandler> handlers = ConcurrentHashMap.newKeySet();
+    private @Nullable MeterRegistryProvider meterRegistryProvider;
+    private volatile @Nullable MeterRegistry meterRegistry;
+    private final UrlFetchCoordinator urlFetchCoordinator = new UrlFetchCoordinator(
+            ThreadPoolManager.getScheduledPool(THING_HANDLER_THREADPOOL_NAME));
 
     @Activate
     public HttpHandlerFactory(@Reference HttpClientFactory httpClientFactory,
@@ -72,8 +86,27 @@ public class HttpHandlerFactory extends BaseThingHandlerFactory
         this.httpDynamicStateDescriptionProvider = httpDynamicStateDescriptionProvider;
     }
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected void setMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        setMeterRegistry(meterRegistryProvider.getOHMeterRegistry());
+    }
+
+    protected void unsetMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        if (this.meterRegistryProvider == meterRegistryProvider) {
+            this.meterRegistryProvider = null;
+            setMeterRegistry(null);
+        }
+    }
+
+    private void setMeterRegistry(@Nullable MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        handlers.forEach(handler -> handler.setMeterRegistry(meterRegistry));
+    }
+
     @Deactivate
     public void deactivate() {
+        urlFetchCoordinator.dispose();
         try {
             secureClient.stop();
             insecureClient.stop();
@@ -93,12 +126,23 @@ public class HttpHandlerFactory extends BaseThingHandlerFactory
         ThingTypeUID thingTypeUID = thing.getThingTypeUID();
 
         if (THING_TYPE_URL.equals(thingTypeUID)) {
-            return new HttpThingHandler(thing, this, this, httpDynamicStateDescriptionProvider);
+            HttpThingHandler handler = new HttpThingHandler(thing, this, this, httpDynamicStateDescriptionProvider,
+                    urlFetchCoordinator, meterRegistry);
+            handlers.add(handler);
+            // the registry may have changed before the handler was added
+            handler.setMeterRegistry(meterRegistry);
+            return handler;
         }
 
         return null;
     }
 
+    @Override
+    protected void removeHandler(ThingHandler thingHandler) {
+        handlers.remove(thingHandler);
+        super.removeHandler(thingHandler);
+    }
+
     @Override
     public ValueTransformation getValueTransformation(@Nullable String pattern) {
         if (pattern == null || pattern.isEmpty()) {
@@ -20,6 +20,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -29,11 +30,8 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Authentication;
 import org.eclipse.jetty.client.api.AuthenticationStore;
-import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.util.BasicAuthentication;
 import org.eclipse.jetty.client.util.DigestAuthentication;
-import org.eclipse.jetty.client.util.StringContentProvider;
-import org.eclipse.jetty.http.HttpMethod;
 import org.openhab.binding.http.internal.config.HttpChannelConfig;
 import org.openhab.binding.http.internal.config.HttpChannelMode;
 import org.openhab.binding.http.internal.config.HttpThingConfig;
@@ -50,8 +48,10 @@ import org.openhab.binding.http.internal.converter.RollershutterItemConverter;
 import org.openhab.binding.http.internal.http.Content;
 import org.openhab.binding.http.internal.http.HttpAuthException;
 import org.openhab.binding.http.internal.http.HttpResponseListener;
+import org.openhab.binding.http.internal.http.HttpResponseMetrics;
 import org.openhab.binding.http.internal.http.RateLimitedHttpClient;
 import org.openhab.binding.http.internal.http.RefreshingUrlCache;
+import org.openhab.binding.http.internal.http.UrlFetchCoordinator;
 import org.openhab.binding.http.internal.transform.ValueTransformationProvider;
 import org.openhab.core.library.types.DateTimeType;
 import org.openhab.core.library.types.PointType;
@@ -70,6 +70,8 @@ import org.openhab.core.types.StateDescriptionFragmentBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * The {@link HttpThingHandler} is responsible for handling commands, which are
  * sent to one of the channels.
@@ -86,6 +88,8 @@ public class HttpThingHandler extends BaseThingHandler {
     private HttpClient httpClient;
     private RateLimitedHttpClient rateLimitedHttpClient;
     private final HttpDynamicStateDescriptionProvider httpDynamicStateDescriptionProvider;
+    private final UrlFetchCoordinator urlFetchCoordinator;
+    private final HttpResponseMetrics metrics;
 
     private HttpThingConfig config = new HttpThingConfig();
     private final Map<String, RefreshingUrlCache> urlHandlers = new HashMap<>();
@@ -94,13 +98,26 @@ public class HttpThingHandler extends BaseThingHandler {
 
     public HttpThingHandler(Thing thing, HttpClientProvider httpClientProvider,
             ValueTransformationProvider valueTransformationProvider,
-            HttpDynamicStateDescriptionProvider httpDynamicStateDescriptionProvider) {
+            HttpDynamicStateDescriptionProvider httpDynamicStateDescriptionProvider,
+            UrlFetchCoordinator urlFetchCoordinator, @Nullable MeterRegistry meterRegistry) {
         super(thing);
         this.httpClientProvider = httpClientProvider;
         this.httpClient = httpClientProvider.getSecureClient();
         this.rateLimitedHttpClient = new RateLimitedHttpClient(httpClient, scheduler);
         this.valueTransformationProvider = valueTransformationProvider;
         this.httpDynamicStateDescriptionProvider = httpDynamicStateDescriptionProvider;
+        this.urlFetchCoordinator = urlFetchCoordinator;
+        this.metrics = new HttpResponseMetrics(meterRegistry, thing.getUID().toString());
+        rateLimitedHttpClient.setMetrics(metrics);
+    }
+
+    /**
+     * Set the registry the metrics of this thing are registered in
+     *
+     * @param meterRegistry the registry, or null if it is no longer available
+     */
+    public void setMeterRegistry(@Nullable MeterRegistry meterRegistry) {
+        metrics.setRegistry(meterRegistry);
     }
 
     @Override
@@ -154,6 +171,10 @@ public class HttpThingHandler extends BaseThingHandler {
         }
         rateLimitedHttpClient.setHttpClient(httpClient);
         rateLimitedHttpClient.setDelay(config.delay);
+        rateLimitedHttpClient.setBurst(Math.max(1, config.burst));
+        rateLimitedHttpClient.setMaxConcurrentRequests(Math.max(0, config.maxConcurrentRequests));
+
+        metrics.open();
 
         int channelCount = thing.getChannels().size();
         if (channelCount * config.delay > config.refresh * 1000) {
@@ -209,8 +230,9 @@ public class HttpThingHandler extends BaseThingHandler {
     @Override
     public void dispose() {
         // stop update tasks
-        urlHandlers.values().forEach(RefreshingUrlCache::stop);
+        urlFetchCoordinator.unsubscribe(thing.getUID());
         rateLimitedHttpClient.shutdown();
+        metrics.close();
 
         // clear lists
         urlHandlers.clear();
@@ -292,8 +314,8 @@ public class HttpThingHandler extends BaseThingHandler {
             // we need a key consisting of stateContent and URL, only if both are equal, we can use the same cache
             String key = channelConfig.stateContent + "$" + stateUrl;
             channelUrls.put(channelUID, key);
-            urlHandlers.computeIfAbsent(key, k -> new RefreshingUrlCache(scheduler, rateLimitedHttpClient, stateUrl,
-                    config, channelConfig.stateContent)).addConsumer(itemValueConverter::process);
+            urlHandlers.put(key, urlFetchCoordinator.subscribe(thing.getUID(), rateLimitedHttpClient, metrics, stateUrl,
+                    config, channelConfig.stateContent, itemValueConverter::process));
         }
 
         StateDescription stateDescription = StateDescriptionFragmentBuilder.create()
@@ -313,51 +335,56 @@ public class HttpThingHandler extends BaseThingHandler {
             // format URL
             URI uri = Util.uriFromString(String.format(commandUrl, new Date(), command));
 
-            // build request
-            Request request = httpClient.newRequest(uri).timeout(config.timeout, TimeUnit.MILLISECONDS)
-                    .method(config.commandMethod);
-            if (config.commandMethod != HttpMethod.GET) {
-                final String contentType = config.contentType;
-                if (contentType != null) {
-                    request.content(new StringContentProvider(command), contentType);
-                } else {
-                    request.content(new StringContentProvider(command));
-                }
-            }
-
-            config.headers.forEach(header -> {
-                String[] keyValuePair = header.split("=", 2);
-                if (keyValuePair.length == 2) {
-                    request.header(keyValuePair[0], keyValuePair[1]);
-                } else {
-                    logger.warn("Splitting header '{}' failed. No '=' was found. Ignoring", header);
-                }
-            });
-
-            if (logger.isTraceEnabled()) {
-                logger.trace("Sending to '{}': {}", uri, Util.requestToLogString(request));
-            }
+            // build request, commands are sent before waiting refresh requests
+            rateLimitedHttpClient.newCommandRequest(uri, config.commandMethod, command, config.contentType)
+                    .thenAccept(rateLimitedHttpClient.releaseOnFailure(request -> {
+                        request.timeout(config.timeout, TimeUnit.MILLISECONDS);
+
+                        config.headers.forEach(header -> {
+                            String[] keyValuePair = header.split("=", 2);
+                            if (keyValuePair.length == 2) {
+                                request.header(keyValuePair[0], keyValuePair[1]);
+                            } else {
+                                logger.warn("Splitting header '{}' failed. No '=' was found. Ignoring", header);
+                            }
+                        });
+
+                        if (logger.isTraceEnabled()) {
+                            logger.trace("Sending to '{}': {}", uri, Util.requestToLogString(request));
+                        }
 
-            CompletableFuture<@Nullable Content> f = new CompletableFuture<>();
-            f.exceptionally(e -> {
-                if (e instanceof HttpAuthException) {
-                    if (isRetry) {
-                        logger.warn("Retry after authentication failure failed again for '{}', failing here", uri);
-                    } else {
-                        AuthenticationStore authStore = httpClient.getAuthenticationStore();
-                        Authentication.Result authResult = authStore.findAuthenticationResult(uri);
-                        if (authResult != null) {
-                            authStore.removeAuthenticationResult(authResult);
-                            logger.debug("Cleared authentication result for '{}', retrying immediately", uri);
-                            sendHttpValue(commandUrl, command, true);
+                        CompletableFuture<@Nullable Content> f = new CompletableFuture<>();
+                        f.exceptionally(e -> {
+                            if (e instanceof HttpAuthException) {
+                                if (isRetry) {
+                                    logger.warn(
+                                            "Retry after authentication failure failed again for '{}', failing here",
+                                            uri);
+                                } else {
+                                    AuthenticationStore authStore = httpClient.getAuthenticationStore();
+                                    Authentication.Result authResult = authStore.findAuthenticationResult(uri);
+                                    if (authResult != null) {
+                                        authStore.removeAuthenticationResult(authResult);
+                                        logger.debug("Cleared authentication result for '{}', retrying immediately",
+                                                uri);
+                                        sendHttpValue(commandUrl, command, true);
+                                    } else {
+                                        logger.warn("Could not find authentication result for '{}', failing here",
+                                                uri);
+                                    }
+                                }
+                            }
+                            return null;
+                        });
+                        request.send(new HttpResponseListener(f, null, config.bufferSize, metrics));
+                    })).exceptionally(e -> {
+                        if (e instanceof CancellationException) {
+                            logger.debug("Request to URL {} was cancelled by thing handler.", uri);
                         } else {
-                            logger.warn("Could not find authentication result for '{}', failing here", uri);
+                            logger.warn("Request to URL {} failed: {}", uri, e.getMessage());
                         }
-                    }
-                }
-                return null;
-            });
-            request.send(new HttpResponseListener(f, null, config.bufferSize));
+                        return null;
+                    });
         } catch (IllegalArgumentException | URISyntaxException | MalformedURLException e) {
             logger.warn("Creating request for '{}' failed: {}", commandUrl, e.getMessage());
         }
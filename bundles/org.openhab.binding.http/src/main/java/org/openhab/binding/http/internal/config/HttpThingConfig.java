@@ -29,6 +29,8 @@ public class HttpThingConfig {
     public int refresh = 30;
     public int timeout = 3000;
     public int delay = 0;
+    public int burst = 1;
+    public int maxConcurrentRequests = 0;
 
     public String username = "";
     public String password = "";
@@ -43,6 +45,7 @@ public class HttpThingConfig {
     public @Nullable String contentType = null;
 
     public boolean ignoreSSLErrors = false;
+    public boolean skipUnchanged = false;
 
     // ArrayList is required as implementation because list may be modified later
     public ArrayList<String> headers = new ArrayList<>();
@@ -14,12 +14,15 @@ package org.openhab.binding.http.internal.http;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 
 /**
- * The {@link Content} defines the pre-processed response
+ * The {@link Content} defines the pre-processed response. Two contents are equal if they have the same bytes,
+ * encoding and media type, regardless of the validators (ETag, Last-Modified) they were received with.
  *
  * @author Jan N. Klug - Initial contribution
  */
@@ -28,10 +31,19 @@ public class Content {
     private final byte[] rawContent;
     private final Charset encoding;
     private final @Nullable String mediaType;
+    private final @Nullable String eTag;
+    private final @Nullable String lastModified;
 
     public Content(byte[] rawContent, String encoding, @Nullable String mediaType) {
+        this(rawContent, encoding, mediaType, null, null);
+    }
+
+    public Content(byte[] rawContent, String encoding, @Nullable String mediaType, @Nullable String eTag,
+            @Nullable String lastModified) {
         this.rawContent = rawContent;
         this.mediaType = mediaType;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
 
         Charset finalEncoding = StandardCharsets.UTF_8;
         try {
@@ -52,4 +64,36 @@ public class Content {
     public @Nullable String getMediaType() {
         return mediaType;
     }
+
+    /**
+     * @return the value of the ETag header of the response, if any
+     */
+    public @Nullable String getETag() {
+        return eTag;
+    }
+
+    /**
+     * @return the value of the Last-Modified header of the response, if any
+     */
+    public @Nullable String getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Content other = (Content) o;
+        return encoding.equals(other.encoding) && Objects.equals(mediaType, other.mediaType)
+                && Arrays.equals(rawContent, other.rawContent);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(encoding, mediaType) + Arrays.hashCode(rawContent);
+    }
 }
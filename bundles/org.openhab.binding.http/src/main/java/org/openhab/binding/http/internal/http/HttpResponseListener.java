@@ -12,8 +12,15 @@
  */
 package org.openhab.binding.http.internal.http;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -21,22 +28,43 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Response;
 import org.eclipse.jetty.client.api.Result;
-import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.MimeTypes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * The {@link HttpResponseListener} is responsible for processing the result of a HTTP request
  *
+ * <p>
+ * The content is received into fixed-size segments, which are taken from a pool shared by all requests, and copied
+ * into an array of the exact size when the response is complete. Responses larger than the buffer size are aborted as
+ * soon as this is known, so the memory used by a request in flight is bounded by the buffer size.
+ *
  * @author Jan N. Klug - Initial contribution
  */
 @NonNullByDefault
-public class HttpResponseListener extends BufferingResponseListener {
+public class HttpResponseListener extends Response.Listener.Adapter {
+    private static final int SEGMENT_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_SEGMENTS = 64;
+    private static final Queue<byte[]> SEGMENT_POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED_SEGMENTS = new AtomicInteger();
+
     private final Logger logger = LoggerFactory.getLogger(HttpResponseListener.class);
     private final CompletableFuture<@Nullable Content> future;
     private final String fallbackEncoding;
+    private final @Nullable Content cachedContent;
+    private final int maxLength;
+    private final List<HttpResponseMetrics> metrics;
+
+    private final List<byte[]> segments = new ArrayList<>();
+    private int length = 0;
+    private long allocatedBytes = 0;
+    private @Nullable String mediaType;
+    private @Nullable String encoding;
 
     /**
      * the HttpResponseListener is responsible
@@ -44,16 +72,76 @@ public class HttpResponseListener extends BufferingResponseListener {
      * @param future Content future to complete with the result of the request
      * @param fallbackEncoding a fallback encoding for the content (UTF-8 if null)
      * @param bufferSize the buffer size for the content in kB (default 2048 kB)
+     * @param metrics the metrics to record the response in
      */
     public HttpResponseListener(CompletableFuture<@Nullable Content> future, @Nullable String fallbackEncoding,
-            int bufferSize) {
-        super(bufferSize * 1024);
+            int bufferSize, HttpResponseMetrics metrics) {
+        this(future, fallbackEncoding, bufferSize, null, List.of(metrics));
+    }
+
+    /**
+     * the HttpResponseListener is responsible
+     *
+     * @param future Content future to complete with the result of the request
+     * @param fallbackEncoding a fallback encoding for the content (UTF-8 if null)
+     * @param bufferSize the buffer size for the content in kB (default 2048 kB)
+     * @param cachedContent the content the request was made conditional on, completes the future if the server
+     *            responds with 304 Not Modified
+     * @param metrics the metrics of all things sharing the response, the allocated memory is split between them
+     */
+    public HttpResponseListener(CompletableFuture<@Nullable Content> future, @Nullable String fallbackEncoding,
+            int bufferSize, @Nullable Content cachedContent, List<HttpResponseMetrics> metrics) {
         this.future = future;
         this.fallbackEncoding = fallbackEncoding != null ? fallbackEncoding : StandardCharsets.UTF_8.name();
+        this.cachedContent = cachedContent;
+        this.maxLength = bufferSize * 1024;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void onHeaders(@NonNullByDefault({}) Response response) {
+        HttpFields headers = response.getHeaders();
+        long contentLength = headers.getLongField(HttpHeader.CONTENT_LENGTH.asString());
+        if (contentLength > maxLength) {
+            abort(response);
+            return;
+        }
+
+        String contentType = headers.get(HttpHeader.CONTENT_TYPE);
+        if (contentType != null) {
+            encoding = MimeTypes.getCharsetFromContentType(contentType);
+            mediaType = encoding != null ? MimeTypes.getContentTypeWithoutCharset(contentType) : contentType;
+        }
+    }
+
+    @Override
+    public void onContent(@NonNullByDefault({}) Response response, @NonNullByDefault({}) ByteBuffer content) {
+        if (length + content.remaining() > maxLength) {
+            abort(response);
+            return;
+        }
+
+        while (content.hasRemaining()) {
+            int offset = length % SEGMENT_SIZE;
+            if (offset == 0) {
+                segments.add(acquireSegment());
+            }
+            int count = Math.min(content.remaining(), SEGMENT_SIZE - offset);
+            content.get(segments.get(segments.size() - 1), offset, count);
+            length += count;
+        }
     }
 
     @Override
     public void onComplete(@NonNullByDefault({}) Result result) {
+        try {
+            processResult(result);
+        } finally {
+            releaseSegments();
+        }
+    }
+
+    private void processResult(Result result) {
         Response response = result.getResponse();
         if (logger.isTraceEnabled()) {
             logger.trace("Received from '{}': {}", result.getRequest().getURI(), responseToLogString(response));
@@ -67,12 +155,23 @@ public class HttpResponseListener extends BufferingResponseListener {
             switch (response.getStatus()) {
                 case HttpStatus.OK_200:
                     byte[] content = getContent();
-                    String encoding = getEncoding();
-                    if (content != null) {
-                        future.complete(
-                                new Content(content, encoding == null ? fallbackEncoding : encoding, getMediaType()));
+                    double allocatedShare = (double) (allocatedBytes + content.length) / Math.max(1, metrics.size());
+                    metrics.forEach(m -> m.recordResponse(content.length, allocatedShare));
+                    HttpFields headers = response.getHeaders();
+                    String encoding = this.encoding;
+                    future.complete(new Content(content, encoding == null ? fallbackEncoding : encoding, mediaType,
+                            headers.get(HttpHeader.ETAG), headers.get(HttpHeader.LAST_MODIFIED)));
+                    break;
+                case HttpStatus.NOT_MODIFIED_304:
+                    Content notModifiedContent = cachedContent;
+                    if (notModifiedContent != null) {
+                        future.complete(notModifiedContent);
                     } else {
-                        future.complete(null);
+                        logger.warn("Requesting '{}' (method='{}', content='{}') failed: unexpected {} {}",
+                                request.getURI(), request.getMethod(), request.getContent(), response.getStatus(),
+                                response.getReason());
+                        future.completeExceptionally(
+                                new IllegalStateException("Response - Code" + response.getStatus()));
                     }
                     break;
                 case HttpStatus.UNAUTHORIZED_401:
@@ -88,10 +187,56 @@ public class HttpResponseListener extends BufferingResponseListener {
         }
     }
 
+    private void abort(Response response) {
+        metrics.forEach(HttpResponseMetrics::responseRejected);
+        response.abort(new IllegalArgumentException("Buffering capacity " + maxLength + " exceeded"));
+    }
+
+    /**
+     * @return the content received so far, in an array of its exact size
+     */
+    private byte[] getContent() {
+        byte[] content = new byte[length];
+        int offset = 0;
+        for (byte[] segment : segments) {
+            int count = Math.min(SEGMENT_SIZE, length - offset);
+            System.arraycopy(segment, 0, content, offset, count);
+            offset += count;
+        }
+        return content;
+    }
+
+    private byte[] acquireSegment() {
+        byte[] segment = SEGMENT_POOL.poll();
+        if (segment != null) {
+            POOLED_SEGMENTS.decrementAndGet();
+            return segment;
+        }
+        allocatedBytes += SEGMENT_SIZE;
+        return new byte[SEGMENT_SIZE];
+    }
+
+    private void releaseSegments() {
+        for (byte[] segment : segments) {
+            if (POOLED_SEGMENTS.incrementAndGet() <= MAX_POOLED_SEGMENTS) {
+                SEGMENT_POOL.offer(segment);
+            } else {
+                POOLED_SEGMENTS.decrementAndGet();
+            }
+        }
+        segments.clear();
+    }
+
     private String responseToLogString(Response response) {
+        String encoding = this.encoding;
+        Charset charset = StandardCharsets.UTF_8;
+        try {
+            charset = Charset.forName(encoding == null ? fallbackEncoding : encoding);
+        } catch (IllegalArgumentException e) {
+        }
         String logString = "Code = {" + response.getStatus() + "}, Headers = {"
                 + response.getHeaders().stream().map(HttpField::toString).collect(Collectors.joining(", "))
-                + "}, Content = {" + getContentAsString() + "}";
+                + "}, Content = {" + new String(getContent(), charset) + "}";
         return logString;
     }
 }
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.http.internal.http.RateLimitedHttpClient.Priority;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * The {@link HttpResponseMetrics} records the memory used for the responses of a thing and the time its requests
+ * waited for the rate limit, tagged with the thing UID. The meters are registered by {@link #open()} and removed from
+ * the registry by {@link #close()}. The registry can be changed at any time, e.g. when it becomes available after the
+ * thing was initialized.
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class HttpResponseMetrics {
+    private static final String PREFIX = "openhab.binding.http.response.";
+    private static final String REQUEST_PREFIX = "openhab.binding.http.request.";
+
+    /** a composite registry without registries, its meters do not record anything */
+    private static final MeterRegistry NOOP_REGISTRY = new CompositeMeterRegistry();
+
+    private final Tags tags;
+    private @Nullable MeterRegistry registry;
+    private boolean open;
+    private volatile Meters meters;
+
+    /**
+     * Creates meters which are not registered anywhere until a registry is set and the meters are opened
+     */
+    public HttpResponseMetrics(String thingUID) {
+        this(null, thingUID);
+    }
+
+    public HttpResponseMetrics(@Nullable MeterRegistry registry, String thingUID) {
+        this.registry = registry;
+        this.tags = Tags.of("thing", thingUID);
+        this.meters = new Meters(NOOP_REGISTRY, tags);
+        // only used while closed, they must not be kept by the shared registry
+        meters.remove();
+    }
+
+    /**
+     * Set the registry the meters are registered in. Open meters are moved to it.
+     *
+     * @param registry the registry, or null to not record anything
+     */
+    public synchronized void setRegistry(@Nullable MeterRegistry registry) {
+        this.registry = registry;
+        if (open) {
+            meters.remove();
+            meters = register();
+        }
+    }
+
+    /**
+     * Register the meters in the registry
+     */
+    public synchronized void open() {
+        if (!open) {
+            open = true;
+            meters = register();
+        }
+    }
+
+    /**
+     * Records a received response
+     *
+     * @param contentLength the length of the content
+     * @param allocatedBytes the bytes allocated to receive it
+     */
+    public void recordResponse(int contentLength, double allocatedBytes) {
+        Meters meters = this.meters;
+        meters.size.record(contentLength);
+        meters.allocated.increment(allocatedBytes);
+    }
+
+    /**
+     * Records the time a request waited for the rate limit
+     *
+     * @param nanos the time in ns
+     * @param priority the priority of the request
+     */
+    public void recordQueueWait(long nanos, Priority priority) {
+        Meters meters = this.meters;
+        (priority == Priority.COMMAND ? meters.commandWait : meters.refreshWait).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void responseRejected() {
+        meters.rejected.increment();
+    }
+
+    /**
+     * Remove the meters from the registry
+     */
+    public synchronized void close() {
+        if (open) {
+            open = false;
+            meters.remove();
+        }
+    }
+
+    private Meters register() {
+        MeterRegistry registry = this.registry;
+        return new Meters(registry != null ? registry : NOOP_REGISTRY, tags);
+    }
+
+    /**
+     * The meters of a thing in one registry
+     */
+    private static class Meters {
+        private final MeterRegistry registry;
+        private final List<Meter> meters = new ArrayList<>();
+        private final DistributionSummary size;
+        private final Counter allocated;
+        private final Counter rejected;
+        private final Timer commandWait;
+        private final Timer refreshWait;
+
+        public Meters(MeterRegistry registry, Tags tags) {
+            this.registry = registry;
+            size = add(DistributionSummary.builder(PREFIX + "size").description("Size of response contents")
+                    .baseUnit("bytes").tags(tags).register(registry));
+            allocated = add(Counter.builder(PREFIX + "allocated").description("Heap allocated for response contents")
+                    .baseUnit("bytes").tags(tags).register(registry));
+            rejected = add(Counter.builder(PREFIX + "rejected").description("Responses exceeding the buffer size")
+                    .tags(tags).register(registry));
+            commandWait = add(waitTimer(tags, Priority.COMMAND));
+            refreshWait = add(waitTimer(tags, Priority.REFRESH));
+        }
+
+        private Timer waitTimer(Tags tags, Priority priority) {
+            return Timer.builder(REQUEST_PREFIX + "wait").description("Time requests waited for the rate limit")
+                    .tags(tags).tag("priority", priority.name().toLowerCase(Locale.ROOT)).publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        private <M extends Meter> M add(M meter) {
+            meters.add(meter);
+            return meter;
+        }
+
+        public void remove() {
+            meters.forEach(registry::remove);
+        }
+    }
+}
@@ -13,18 +13,26 @@
 package org.openhab.binding.http.internal.http;
 
 import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.AuthenticationStore;
+import org.eclipse.jetty.client.api.ContentProvider;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.util.StringContentProvider;
 import org.eclipse.jetty.http.HttpMethod;
@@ -33,17 +41,36 @@ import org.eclipse.jetty.http.HttpMethod;
  * The {@link RateLimitedHttpClient} is a wrapper for a Jetty HTTP client that limits the number of requests by delaying
  * the request creation
  *
+ * <p>
+ * Requests are limited per destination (scheme, host and port) by a token bucket, which is refilled with one token per
+ * <code>delay</code> and holds up to <code>burst</code> tokens, and optionally by a maximum number of requests in
+ * flight. Waiting command requests are always started before waiting refresh requests. A request created by this client
+ * holds its place until it completes, so a caller which does not send it must {@link #release(Request)} it, see
+ * {@link #releaseOnFailure(Consumer)}.
+ *
  * @author Jan N. Klug - Initial contribution
  */
 @NonNullByDefault
 public class RateLimitedHttpClient {
-    private static final int MAX_QUEUE_SIZE = 1000; // maximum queue size
+    private static final int MAX_QUEUE_SIZE = 1000; // maximum queue size per destination
+    private static final String SLOT_ATTRIBUTE = RateLimitedHttpClient.class.getName() + ".slot";
     private HttpClient httpClient;
     private int delay = 0; // in ms
+    private int burst = 1;
+    private int maxConcurrentRequests = 0; // 0 = unlimited
+    private @Nullable HttpResponseMetrics metrics;
     private final ScheduledExecutorService scheduler;
-    private final LinkedBlockingQueue<RequestQueueEntry> requestQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
 
-    private @Nullable ScheduledFuture<?> processJob;
+    /**
+     * The priority of a request
+     */
+    public enum Priority {
+        /** a command, started before any waiting refresh */
+        COMMAND,
+        /** a refresh of a state */
+        REFRESH
+    }
 
     public RateLimitedHttpClient(HttpClient httpClient, ScheduledExecutorService scheduler) {
         this.httpClient = httpClient;
@@ -54,8 +81,8 @@ public class RateLimitedHttpClient {
      * Stop processing the queue and clear it
      */
     public void shutdown() {
-        stopProcessJob();
-        requestQueue.forEach(queueEntry -> queueEntry.future.completeExceptionally(new CancellationException()));
+        destinations.values().forEach(Destination::cancel);
+        destinations.clear();
     }
 
     /**
@@ -68,10 +95,30 @@ public class RateLimitedHttpClient {
             throw new IllegalArgumentException("Delay needs to be larger or equal to zero");
         }
         this.delay = delay;
-        stopProcessJob();
-        if (delay != 0) {
-            processJob = scheduler.scheduleWithFixedDelay(this::processQueue, 0, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Set the number of requests which may be sent without delay after a pause
+     *
+     * @param burst the size of the token bucket
+     */
+    public void setBurst(int burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst needs to be larger than zero");
         }
+        this.burst = burst;
+    }
+
+    /**
+     * Set the maximum number of requests in flight per destination
+     *
+     * @param maxConcurrentRequests the maximum number, 0 for no limit
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 0) {
+            throw new IllegalArgumentException("Maximum concurrent requests need to be larger or equal to zero");
+        }
+        this.maxConcurrentRequests = maxConcurrentRequests;
     }
 
     /**
@@ -83,6 +130,15 @@ public class RateLimitedHttpClient {
         this.httpClient = httpClient;
     }
 
+    /**
+     * Set the metrics which record the time requests wait before they are created
+     *
+     * @param metrics the metrics
+     */
+    public void setMetrics(HttpResponseMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Create a new request to the given URL respecting rate-limits
      *
@@ -92,17 +148,57 @@ public class RateLimitedHttpClient {
      * @return a CompletableFuture that completes with the request
      */
     public CompletableFuture<Request> newRequest(URI finalUrl, HttpMethod method, String content) {
-        // if no delay is set, return a completed CompletableFuture
-        CompletableFuture<Request> future = new CompletableFuture<>();
-        RequestQueueEntry queueEntry = new RequestQueueEntry(finalUrl, method, content, future);
-        if (delay == 0) {
-            queueEntry.completeFuture(httpClient);
-        } else {
-            if (!requestQueue.offer(queueEntry)) {
-                future.completeExceptionally(new RejectedExecutionException("Maximum queue size exceeded."));
-            }
+        ContentProvider contentProvider = method != HttpMethod.GET && !content.isEmpty()
+                ? new StringContentProvider(content)
+                : null;
+        return enqueue(new RequestQueueEntry(finalUrl, method, contentProvider, null, Priority.REFRESH));
+    }
+
+    /**
+     * Create a new command request to the given URL respecting rate-limits. It is created before all waiting refresh
+     * requests.
+     *
+     * @param finalUrl the request URL
+     * @param method http request method GET/PUT/POST
+     * @param content the content (if method PUT/POST)
+     * @param contentType the content type of the content, if any
+     * @return a CompletableFuture that completes with the request
+     */
+    public CompletableFuture<Request> newCommandRequest(URI finalUrl, HttpMethod method, String content,
+            @Nullable String contentType) {
+        ContentProvider contentProvider = method != HttpMethod.GET ? new StringContentProvider(content) : null;
+        return enqueue(new RequestQueueEntry(finalUrl, method, contentProvider, contentType, Priority.COMMAND));
+    }
+
+    /**
+     * Release the place of a request which will not be sent, e.g. because preparing it failed. Releasing a request
+     * which was sent or already released has no effect.
+     *
+     * @param request a request created by this client
+     */
+    public void release(Request request) {
+        Object slot = request.getAttributes().get(SLOT_ATTRIBUTE);
+        if (slot instanceof Slot) {
+            ((Slot) slot).release();
         }
-        return future;
+    }
+
+    /**
+     * Wrap a consumer which prepares and sends a request, so the request is released if the consumer fails before
+     * sending it
+     *
+     * @param consumer the consumer of the requests created by this client
+     * @return a consumer which releases the request if the given one throws an exception
+     */
+    public Consumer<Request> releaseOnFailure(Consumer<Request> consumer) {
+        return request -> {
+            try {
+                consumer.accept(request);
+            } catch (RuntimeException e) {
+                release(request);
+                throw e;
+            }
+        };
     }
 
     /**
@@ -114,45 +210,191 @@ public class RateLimitedHttpClient {
         return httpClient.getAuthenticationStore();
     }
 
-    private void stopProcessJob() {
-        ScheduledFuture<?> processJob = this.processJob;
-        if (processJob != null) {
-            processJob.cancel(false);
-            this.processJob = null;
+    private CompletableFuture<Request> enqueue(RequestQueueEntry queueEntry) {
+        if (delay == 0 && maxConcurrentRequests == 0) {
+            // no limits, create the request immediately
+            queueEntry.completeFuture(httpClient, null);
+        } else {
+            URI uri = queueEntry.finalUrl;
+            String key = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+            destinations.computeIfAbsent(key, k -> new Destination()).enqueue(queueEntry);
         }
+        return queueEntry.future;
     }
 
-    private void processQueue() {
-        RequestQueueEntry queueEntry = requestQueue.poll();
-        if (queueEntry != null) {
-            queueEntry.completeFuture(httpClient);
+    /**
+     * The queues and limits of a single destination
+     */
+    private class Destination {
+        private final Deque<RequestQueueEntry> commands = new ArrayDeque<>();
+        private final Deque<RequestQueueEntry> refreshes = new ArrayDeque<>();
+        private double tokens = burst;
+        private long lastRefill = System.nanoTime();
+        private int inFlight = 0;
+        private @Nullable ScheduledFuture<?> wakeUp;
+
+        public void enqueue(RequestQueueEntry queueEntry) {
+            RequestQueueEntry rejected = null;
+            synchronized (this) {
+                if (commands.size() + refreshes.size() >= MAX_QUEUE_SIZE) {
+                    // a command replaces the oldest refresh, which will be repeated anyway
+                    rejected = queueEntry.priority == Priority.COMMAND ? refreshes.pollFirst() : null;
+                    if (rejected == null) {
+                        rejected = queueEntry;
+                    }
+                }
+                if (rejected != queueEntry) {
+                    (queueEntry.priority == Priority.COMMAND ? commands : refreshes).add(queueEntry);
+                }
+            }
+            if (rejected != null) {
+                rejected.future.completeExceptionally(new RejectedExecutionException("Maximum queue size exceeded."));
+            }
+            process();
+        }
+
+        public void cancel() {
+            List<RequestQueueEntry> cancelled;
+            synchronized (this) {
+                ScheduledFuture<?> wakeUp = this.wakeUp;
+                if (wakeUp != null) {
+                    wakeUp.cancel(false);
+                    this.wakeUp = null;
+                }
+                cancelled = new ArrayList<>(commands);
+                cancelled.addAll(refreshes);
+                commands.clear();
+                refreshes.clear();
+            }
+            cancelled.forEach(queueEntry -> queueEntry.future.completeExceptionally(new CancellationException()));
+        }
+
+        /**
+         * Start all requests which are allowed by the limits. The requests are created outside the lock, as the
+         * callers send them synchronously.
+         */
+        private void process() {
+            List<RequestQueueEntry> ready = new ArrayList<>();
+            synchronized (this) {
+                refill();
+                while (!commands.isEmpty() || !refreshes.isEmpty()) {
+                    if (maxConcurrentRequests > 0 && inFlight >= maxConcurrentRequests) {
+                        // continued when a request completes
+                        break;
+                    }
+                    if (delay > 0 && tokens < 1) {
+                        scheduleWakeUp();
+                        break;
+                    }
+                    RequestQueueEntry queueEntry = commands.isEmpty() ? refreshes.poll() : commands.poll();
+                    if (delay > 0) {
+                        tokens -= 1;
+                    }
+                    inFlight++;
+                    ready.add(queueEntry);
+                }
+            }
+            ready.forEach(queueEntry -> queueEntry.completeFuture(httpClient, this));
+        }
+
+        private void wakeUp() {
+            synchronized (this) {
+                wakeUp = null;
+            }
+            process();
+        }
+
+        private void release() {
+            synchronized (this) {
+                inFlight--;
+            }
+            process();
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            if (delay > 0) {
+                tokens = Math.min(burst, tokens + (double) (now - lastRefill) / TimeUnit.MILLISECONDS.toNanos(delay));
+            }
+            lastRefill = now;
+        }
+
+        private void scheduleWakeUp() {
+            if (wakeUp == null) {
+                long waitTime = (long) Math.ceil((1 - tokens) * TimeUnit.MILLISECONDS.toNanos(delay));
+                wakeUp = scheduler.schedule(this::wakeUp, waitTime, TimeUnit.NANOSECONDS);
+            }
         }
     }
 
-    private static class RequestQueueEntry {
-        private URI finalUrl;
-        private HttpMethod method;
-        private String content;
-        private CompletableFuture<Request> future;
+    private class RequestQueueEntry {
+        private final URI finalUrl;
+        private final HttpMethod method;
+        private final @Nullable ContentProvider contentProvider;
+        private final @Nullable String contentType;
+        private final Priority priority;
+        private final CompletableFuture<Request> future = new CompletableFuture<>();
+        private final long enqueued = System.nanoTime();
 
-        public RequestQueueEntry(URI finalUrl, HttpMethod method, String content, CompletableFuture<Request> future) {
+        public RequestQueueEntry(URI finalUrl, HttpMethod method, @Nullable ContentProvider contentProvider,
+                @Nullable String contentType, Priority priority) {
             this.finalUrl = finalUrl;
             this.method = method;
-            this.content = content;
-            this.future = future;
+            this.contentProvider = contentProvider;
+            this.contentType = contentType;
+            this.priority = priority;
         }
 
         /**
          * complete the future with a request
          *
          * @param httpClient the client to create the request
+         * @param destination the destination to notify when the request completes, if it is limited
          */
-        public void completeFuture(HttpClient httpClient) {
+        public void completeFuture(HttpClient httpClient, @Nullable Destination destination) {
+            HttpResponseMetrics metrics = RateLimitedHttpClient.this.metrics;
+            if (metrics != null) {
+                metrics.recordQueueWait(System.nanoTime() - enqueued, priority);
+            }
+
             Request request = httpClient.newRequest(finalUrl).method(method);
-            if (method != HttpMethod.GET && !content.isEmpty()) {
-                request.content(new StringContentProvider(content));
+            ContentProvider contentProvider = this.contentProvider;
+            if (contentProvider != null) {
+                String contentType = this.contentType;
+                if (contentType != null) {
+                    request.content(contentProvider, contentType);
+                } else {
+                    request.content(contentProvider);
+                }
+            }
+            if (destination != null) {
+                Slot slot = new Slot(destination);
+                request.attribute(SLOT_ATTRIBUTE, slot);
+                request.onComplete(result -> slot.release());
+            }
+            if (!future.complete(request)) {
+                // the request was cancelled and will never be sent
+                release(request);
+            }
+        }
+    }
+
+    /**
+     * The place of a request in the limits of its destination, which is released exactly once, either when the request
+     * completes or when the caller gives it up
+     */
+    private class Slot {
+        private final Destination destination;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public Slot(Destination destination) {
+            this.destination = destination;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                destination.release();
             }
-            future.complete(request);
         }
     }
 }
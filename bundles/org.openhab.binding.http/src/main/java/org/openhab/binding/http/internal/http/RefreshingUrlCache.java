@@ -16,7 +16,9 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
@@ -25,15 +27,19 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.api.Authentication;
 import org.eclipse.jetty.client.api.AuthenticationStore;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.openhab.binding.http.internal.Util;
 import org.openhab.binding.http.internal.config.HttpThingConfig;
+import org.openhab.core.thing.ThingUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,38 +47,50 @@ import org.slf4j.LoggerFactory;
  * The {@link RefreshingUrlCache} is responsible for requesting from a single URL and passing the content to the
  * channels
  *
+ * <p>
+ * A cache can be shared by several things, see {@link UrlFetchCoordinator}. It is refreshed with the shortest interval
+ * any of them requested, using the rate-limited client of one of them.
+ *
+ * <p>
+ * GET requests are made conditional on the ETag and Last-Modified headers of the last response, so an unchanged
+ * resource is not transferred again. If configured, content which is equal to the last content is not passed to the
+ * consumers.
+ *
  * @author Jan N. Klug - Initial contribution
  */
 @NonNullByDefault
 public class RefreshingUrlCache {
     private final Logger logger = LoggerFactory.getLogger(RefreshingUrlCache.class);
 
+    private final ScheduledExecutorService executor;
     private final String url;
-    private final RateLimitedHttpClient httpClient;
     private final int timeout;
     private final int bufferSize;
     private final @Nullable String fallbackEncoding;
-    private final Set<Consumer<Content>> consumers = ConcurrentHashMap.newKeySet();
+    private final Map<ThingUID, Subscriber> subscribers = new ConcurrentHashMap<>();
     private final List<String> headers;
     private final HttpMethod httpMethod;
     private final String httpContent;
+    private final boolean skipUnchanged;
+
+    private @Nullable ScheduledFuture<?> future;
+    private int refreshInterval;
+    private volatile @Nullable Content lastContent;
 
-    private final ScheduledFuture<?> future;
-    private @Nullable Content lastContent;
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong dispatchesSkipped = new AtomicLong();
 
-    public RefreshingUrlCache(ScheduledExecutorService executor, RateLimitedHttpClient httpClient, String url,
-            HttpThingConfig thingConfig, String httpContent) {
-        this.httpClient = httpClient;
+    public RefreshingUrlCache(ScheduledExecutorService executor, String url, HttpThingConfig thingConfig,
+            String httpContent) {
+        this.executor = executor;
         this.url = url;
         this.timeout = thingConfig.timeout;
         this.bufferSize = thingConfig.bufferSize;
-        this.headers = thingConfig.headers;
+        this.headers = List.copyOf(thingConfig.headers);
         this.httpMethod = thingConfig.stateMethod;
         this.httpContent = httpContent;
+        this.skipUnchanged = thingConfig.skipUnchanged;
         fallbackEncoding = thingConfig.encoding;
-
-        future = executor.scheduleWithFixedDelay(this::refresh, 1, thingConfig.refresh, TimeUnit.SECONDS);
-        logger.trace("Started refresh task for URL '{}' with interval {}s", url, thingConfig.refresh);
     }
 
     private void refresh() {
@@ -80,19 +98,36 @@ public class RefreshingUrlCache {
     }
 
     private void refresh(boolean isRetry) {
-        if (consumers.isEmpty()) {
+        Iterator<Subscriber> iterator = subscribers.values().iterator();
+        if (!iterator.hasNext()) {
             // do not refresh if we don't have listeners
             return;
         }
+        // the request is sent and rate-limited by the first thing, the response is recorded for all of them
+        RateLimitedHttpClient httpClient = iterator.next().httpClient;
+        List<HttpResponseMetrics> metrics = subscribers.values().stream().map(subscriber -> subscriber.metrics)
+                .collect(Collectors.toList());
 
         // format URL
         try {
             URI uri = Util.uriFromString(String.format(this.url, new Date()));
             logger.trace("Requesting refresh (retry={}) from '{}' with timeout {}ms", isRetry, uri, timeout);
 
-            httpClient.newRequest(uri, httpMethod, httpContent).thenAccept(request -> {
+            Content cachedContent = httpMethod == HttpMethod.GET ? lastContent : null;
+            httpClient.newRequest(uri, httpMethod, httpContent).thenAccept(httpClient.releaseOnFailure(request -> {
                 request.timeout(timeout, TimeUnit.MILLISECONDS);
 
+                if (cachedContent != null) {
+                    String eTag = cachedContent.getETag();
+                    if (eTag != null) {
+                        request.header(HttpHeader.IF_NONE_MATCH, eTag);
+                    }
+                    String lastModified = cachedContent.getLastModified();
+                    if (lastModified != null) {
+                        request.header(HttpHeader.IF_MODIFIED_SINCE, lastModified);
+                    }
+                }
+
                 headers.forEach(header -> {
                     String[] keyValuePair = header.split("=", 2);
                     if (keyValuePair.length == 2) {
@@ -126,8 +161,8 @@ public class RefreshingUrlCache {
                     logger.trace("Sending to '{}': {}", uri, Util.requestToLogString(request));
                 }
 
-                request.send(new HttpResponseListener(response, fallbackEncoding, bufferSize));
-            }).exceptionally(e -> {
+                request.send(new HttpResponseListener(response, fallbackEncoding, bufferSize, cachedContent, metrics));
+            })).exceptionally(e -> {
                 if (e instanceof CancellationException) {
                     logger.debug("Request to URL {} was cancelled by thing handler.", uri);
                 } else {
@@ -140,15 +175,73 @@ public class RefreshingUrlCache {
         }
     }
 
-    public void stop() {
+    public synchronized void stop() {
         // clearing all listeners to prevent further updates
-        consumers.clear();
-        future.cancel(false);
-        logger.trace("Stopped refresh task for URL '{}'", url);
+        subscribers.clear();
+        ScheduledFuture<?> future = this.future;
+        if (future != null) {
+            future.cancel(false);
+            this.future = null;
+        }
+        logger.trace("Stopped refresh task for URL '{}' ({} bytes saved by conditional requests, {} dispatches skipped)",
+                url, bytesSaved.get(), dispatchesSkipped.get());
+    }
+
+    /**
+     * Add a consumer for the content of this URL
+     *
+     * @param thingUID the thing the consumer belongs to
+     * @param httpClient the rate-limited client of that thing
+     * @param metrics the response metrics of that thing
+     * @param refresh the refresh interval requested by that thing in s
+     * @param consumer the consumer
+     */
+    public synchronized void addConsumer(ThingUID thingUID, RateLimitedHttpClient httpClient,
+            HttpResponseMetrics metrics, int refresh, Consumer<Content> consumer) {
+        subscribers.computeIfAbsent(thingUID, uid -> new Subscriber(httpClient, metrics, refresh)).consumers
+                .add(consumer);
+
+        Content content = lastContent;
+        if (content != null) {
+            // the cache is already running, so the consumer would have to wait for the next refresh otherwise
+            scheduleDispatch(consumer, content);
+        }
+        reschedule();
+    }
+
+    private void scheduleDispatch(Consumer<Content> consumer, Content content) {
+        executor.schedule(() -> dispatch(consumer, content), 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Remove all consumers of a thing
+     *
+     * @param thingUID the thing
+     * @return true if there are consumers of other things left
+     */
+    public synchronized boolean removeConsumers(ThingUID thingUID) {
+        subscribers.remove(thingUID);
+        if (subscribers.isEmpty()) {
+            return false;
+        }
+        reschedule();
+        return true;
     }
 
-    public void addConsumer(Consumer<Content> consumer) {
-        consumers.add(consumer);
+    private void reschedule() {
+        int interval = subscribers.values().stream().mapToInt(subscriber -> subscriber.refresh).min().orElse(0);
+        ScheduledFuture<?> future = this.future;
+        if (interval == refreshInterval && future != null) {
+            return;
+        }
+        long initialDelay = 1;
+        if (future != null) {
+            future.cancel(false);
+            initialDelay = interval;
+        }
+        refreshInterval = interval;
+        this.future = executor.scheduleWithFixedDelay(this::refresh, initialDelay, interval, TimeUnit.SECONDS);
+        logger.trace("Started refresh task for URL '{}' with interval {}s", url, interval);
     }
 
     public Optional<Content> get() {
@@ -160,16 +253,60 @@ public class RefreshingUrlCache {
         }
     }
 
+    /**
+     * @return the number of content bytes which were not transferred because the server answered 304 Not Modified
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    /**
+     * @return the number of responses which were not passed to the consumers because they were unchanged
+     */
+    public long getDispatchesSkipped() {
+        return dispatchesSkipped.get();
+    }
+
     private void processResult(@Nullable Content content) {
         if (content != null) {
-            for (Consumer<Content> consumer : consumers) {
-                try {
-                    consumer.accept(content);
-                } catch (IllegalArgumentException | IllegalStateException e) {
-                    logger.warn("Failed processing result for URL {}: {}", url, e.getMessage());
+            Content previousContent = lastContent;
+            if (content == previousContent) {
+                // the listener completes with the cached content on 304 Not Modified
+                bytesSaved.addAndGet(content.getRawContent().length);
+                logger.trace("Content of URL {} not modified", url);
+            }
+            if (skipUnchanged && content.equals(previousContent)) {
+                dispatchesSkipped.incrementAndGet();
+                logger.trace("Content of URL {} unchanged, not passing it to the channels", url);
+            } else {
+                for (Subscriber subscriber : subscribers.values()) {
+                    for (Consumer<Content> consumer : subscriber.consumers) {
+                        dispatch(consumer, content);
+                    }
                 }
             }
         }
         lastContent = content;
     }
+
+    private void dispatch(Consumer<Content> consumer, Content content) {
+        try {
+            consumer.accept(content);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            logger.warn("Failed processing result for URL {}: {}", url, e.getMessage());
+        }
+    }
+
+    private static class Subscriber {
+        private final RateLimitedHttpClient httpClient;
+        private final HttpResponseMetrics metrics;
+        private final int refresh;
+        private final Set<Consumer<Content>> consumers = ConcurrentHashMap.newKeySet();
+
+        public Subscriber(RateLimitedHttpClient httpClient, HttpResponseMetrics metrics, int refresh) {
+            this.httpClient = httpClient;
+            this.metrics = metrics;
+            this.refresh = refresh;
+        }
+    }
 }
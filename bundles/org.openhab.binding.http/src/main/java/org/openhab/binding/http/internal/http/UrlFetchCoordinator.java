@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.binding.http.internal.config.HttpThingConfig;
+import org.openhab.core.thing.ThingUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link UrlFetchCoordinator} shares {@link RefreshingUrlCache}s between things. Things requesting the same URL
+ * with the same method, headers, content and request settings get the same cache, so the URL is requested only once
+ * per refresh and the result is passed to the channels of all of them.
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class UrlFetchCoordinator {
+    private final Logger logger = LoggerFactory.getLogger(UrlFetchCoordinator.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final Map<List<Object>, RefreshingUrlCache> caches = new HashMap<>();
+
+    public UrlFetchCoordinator(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Subscribe to the content of a URL
+     *
+     * @param thingUID the thing subscribing
+     * @param httpClient the rate-limited client of the thing
+     * @param metrics the response metrics of the thing
+     * @param url the URL, may contain a date format
+     * @param thingConfig the configuration of the thing
+     * @param httpContent the content of the request
+     * @param consumer the consumer for the content
+     * @return the cache of the URL
+     */
+    public synchronized RefreshingUrlCache subscribe(ThingUID thingUID, RateLimitedHttpClient httpClient,
+            HttpResponseMetrics metrics, String url, HttpThingConfig thingConfig, String httpContent,
+            Consumer<Content> consumer) {
+        List<Object> key = Arrays.asList(thingConfig.stateMethod, url, httpContent, List.copyOf(thingConfig.headers),
+                thingConfig.username, thingConfig.password, thingConfig.authMode, thingConfig.ignoreSSLErrors,
+                thingConfig.timeout, thingConfig.bufferSize, thingConfig.encoding, thingConfig.skipUnchanged);
+        RefreshingUrlCache cache = caches.get(key);
+        if (cache == null) {
+            cache = new RefreshingUrlCache(scheduler, url, thingConfig, httpContent);
+            caches.put(key, cache);
+        } else {
+            logger.debug("Thing '{}' shares the requests to URL '{}' with other things", thingUID, url);
+        }
+        cache.addConsumer(thingUID, httpClient, metrics, thingConfig.refresh, consumer);
+        return cache;
+    }
+
+    /**
+     * Remove all subscriptions of a thing. Caches without subscriptions are stopped.
+     *
+     * @param thingUID the thing
+     */
+    public synchronized void unsubscribe(ThingUID thingUID) {
+        caches.values().removeIf(cache -> {
+            if (cache.removeConsumers(thingUID)) {
+                return false;
+            }
+            cache.stop();
+            return true;
+        });
+    }
+
+    /**
+     * Stop all caches
+     */
+    public synchronized void dispose() {
+        caches.values().forEach(RefreshingUrlCache::stop);
+        caches.clear();
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The {@link ContentTest} is a test class for the equality of {@link Content}s
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class ContentTest {
+    private static final byte[] BYTES = "{\"state\":\"ON\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void contentsWithDifferentValidatorsAreEqual() {
+        Content content = new Content(BYTES, "UTF-8", "application/json", "\"v1\"", null);
+        Content other = new Content(BYTES.clone(), "UTF-8", "application/json", "\"v2\"",
+                "Wed, 21 Oct 2015 07:28:00 GMT");
+
+        assertEquals(content, other);
+        assertEquals(content.hashCode(), other.hashCode());
+    }
+
+    @Test
+    public void contentsWithDifferentBytesAreNotEqual() {
+        Content content = new Content(BYTES, "UTF-8", "application/json");
+        Content other = new Content("{\"state\":\"OFF\"}".getBytes(StandardCharsets.UTF_8), "UTF-8",
+                "application/json");
+
+        assertNotEquals(content, other);
+    }
+
+    @Test
+    public void contentsWithDifferentEncodingOrMediaTypeAreNotEqual() {
+        Content content = new Content(BYTES, "UTF-8", "application/json");
+
+        assertNotEquals(content, new Content(BYTES, "ISO-8859-1", "application/json"));
+        assertNotEquals(content, new Content(BYTES, "UTF-8", "text/plain"));
+        assertNotEquals(content, new Content(BYTES, "UTF-8", null));
+    }
+
+    @Test
+    public void invalidEncodingFallsBackToUtf8() {
+        assertEquals(new Content(BYTES, "UTF-8", null), new Content(BYTES, "no-such-encoding", null));
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The {@link HttpResponseListenerTest} is a test class for the processing of responses by the
+ * {@link HttpResponseListener}
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class HttpResponseListenerTest {
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    private final HttpResponseMetrics metrics = new HttpResponseMetrics("http:url:test");
+
+    @Test
+    public void okResponseCompletesWithContentAndValidators() throws Exception {
+        CompletableFuture<@Nullable Content> future = new CompletableFuture<>();
+        HttpFields headers = new HttpFields();
+        headers.put(HttpHeader.CONTENT_TYPE, "application/json; charset=ISO-8859-1");
+        headers.put(HttpHeader.ETAG, ETAG);
+        headers.put(HttpHeader.LAST_MODIFIED, LAST_MODIFIED);
+
+        respond(new HttpResponseListener(future, null, 2048, metrics), HttpStatus.OK_200, headers, "{}");
+
+        Content content = future.get();
+        assertNotNull(content);
+        assertEquals("{}", content.getAsString());
+        assertEquals("application/json", content.getMediaType());
+        assertEquals(ETAG, content.getETag());
+        assertEquals(LAST_MODIFIED, content.getLastModified());
+        assertEquals(new Content("{}".getBytes(StandardCharsets.UTF_8), "ISO-8859-1", "application/json"), content);
+    }
+
+    @Test
+    public void notModifiedResponseCompletesWithCachedContent() throws Exception {
+        CompletableFuture<@Nullable Content> future = new CompletableFuture<>();
+        Content cachedContent = new Content("{}".getBytes(StandardCharsets.UTF_8), "UTF-8", null, ETAG, null);
+
+        respond(new HttpResponseListener(future, null, 2048, cachedContent, List.of(metrics)),
+                HttpStatus.NOT_MODIFIED_304, new HttpFields(), "");
+
+        assertSame(cachedContent, future.get());
+    }
+
+    @Test
+    public void notModifiedResponseWithoutCachedContentFails() {
+        CompletableFuture<@Nullable Content> future = new CompletableFuture<>();
+
+        respond(new HttpResponseListener(future, null, 2048, metrics), HttpStatus.NOT_MODIFIED_304, new HttpFields(),
+                "");
+
+        assertThrows(ExecutionException.class, future::get);
+    }
+
+    @Test
+    public void segmentsAreReusedByLaterResponses() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HttpResponseMetrics metrics = new HttpResponseMetrics(registry, "http:url:test");
+        metrics.open();
+        // spans three segments, with the last one partially filled
+        String content = "x".repeat(40 * 1024);
+
+        CompletableFuture<@Nullable Content> first = new CompletableFuture<>();
+        respond(new HttpResponseListener(first, null, 2048, metrics), HttpStatus.OK_200, new HttpFields(), content);
+        double allocatedByFirst = allocated(registry);
+        CompletableFuture<@Nullable Content> second = new CompletableFuture<>();
+        respond(new HttpResponseListener(second, null, 2048, metrics), HttpStatus.OK_200, new HttpFields(), content);
+
+        Content secondContent = second.get();
+        assertNotNull(secondContent);
+        assertEquals(content, secondContent.getAsString());
+        // only the array of the exact content size is allocated, the segments are taken from the pool
+        assertEquals(content.length(), allocated(registry) - allocatedByFirst);
+    }
+
+    @Test
+    public void responseExceedingTheBufferSizeIsAborted() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HttpResponseMetrics metrics = new HttpResponseMetrics(registry, "http:url:test");
+        metrics.open();
+        HttpFields headers = new HttpFields();
+        headers.putLongField(HttpHeader.CONTENT_LENGTH, 2048);
+
+        Response response = respond(new HttpResponseListener(new CompletableFuture<>(), null, 1, metrics),
+                HttpStatus.OK_200, headers, "");
+        verify(response).abort(any());
+
+        // without Content-Length, it is aborted as soon as the content exceeds the buffer size
+        response = respond(new HttpResponseListener(new CompletableFuture<>(), null, 1, metrics), HttpStatus.OK_200,
+                new HttpFields(), "x".repeat(1025));
+        verify(response).abort(any());
+
+        assertEquals(2, registry.get("openhab.binding.http.response.rejected").counter().count());
+    }
+
+    @Test
+    public void sharedResponseIsRecordedForAllThings() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HttpResponseMetrics thing1 = new HttpResponseMetrics(registry, "http:url:thing1");
+        HttpResponseMetrics thing2 = new HttpResponseMetrics(registry, "http:url:thing2");
+        thing1.open();
+        thing2.open();
+
+        respond(new HttpResponseListener(new CompletableFuture<>(), null, 2048, null, List.of(thing1, thing2)),
+                HttpStatus.OK_200, new HttpFields(), "x".repeat(1000));
+
+        for (String thing : List.of("http:url:thing1", "http:url:thing2")) {
+            assertEquals(1, registry.get("openhab.binding.http.response.size").tag("thing", thing).summary().count());
+            assertEquals(1000,
+                    registry.get("openhab.binding.http.response.size").tag("thing", thing).summary().totalAmount());
+        }
+        assertEquals(allocated(registry, "http:url:thing1"), allocated(registry, "http:url:thing2"));
+    }
+
+    private static double allocated(MeterRegistry registry) {
+        return allocated(registry, "http:url:test");
+    }
+
+    private static double allocated(MeterRegistry registry, String thing) {
+        return registry.get("openhab.binding.http.response.allocated").tag("thing", thing).counter().count();
+    }
+
+    static Response respond(HttpResponseListener listener, int status, HttpFields headers, String content) {
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(status);
+        when(response.getHeaders()).thenReturn(headers);
+        Result result = mock(Result.class);
+        when(result.getResponse()).thenReturn(response);
+        when(result.getRequest()).thenReturn(mock(Request.class));
+
+        listener.onHeaders(response);
+        if (!content.isEmpty()) {
+            listener.onContent(response, ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+        }
+        listener.onComplete(result);
+        return response;
+    }
+}
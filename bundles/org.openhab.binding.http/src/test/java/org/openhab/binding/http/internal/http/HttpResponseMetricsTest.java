@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The {@link HttpResponseMetricsTest} is a test class for the registration of the {@link HttpResponseMetrics}
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class HttpResponseMetricsTest {
+    private static final String THING = "http:url:test";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void metersAreRegisteredWhileOpen() {
+        HttpResponseMetrics metrics = new HttpResponseMetrics(registry, THING);
+        assertTrue(registry.getMeters().isEmpty());
+
+        metrics.open();
+        metrics.recordResponse(100, 100);
+        assertEquals(100, allocated().count());
+
+        metrics.close();
+        assertTrue(registry.getMeters().isEmpty());
+    }
+
+    @Test
+    public void openMetersMoveToANewRegistry() {
+        HttpResponseMetrics metrics = new HttpResponseMetrics(THING);
+        metrics.open();
+        // recorded while no registry is available
+        metrics.recordResponse(100, 100);
+
+        metrics.setRegistry(registry);
+        metrics.recordResponse(50, 50);
+        assertEquals(50, allocated().count());
+
+        metrics.setRegistry(null);
+        assertTrue(registry.getMeters().isEmpty());
+    }
+
+    @Test
+    public void closedMetersAreNotRegisteredByANewRegistry() {
+        HttpResponseMetrics metrics = new HttpResponseMetrics(THING);
+        metrics.setRegistry(registry);
+        assertTrue(registry.getMeters().isEmpty());
+
+        metrics.open();
+        assertFalse(registry.getMeters().isEmpty());
+    }
+
+    private Counter allocated() {
+        return registry.get("openhab.binding.http.response.allocated").tag("thing", THING).counter();
+    }
+}
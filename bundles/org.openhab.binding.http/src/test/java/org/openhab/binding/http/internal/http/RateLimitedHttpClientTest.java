@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpConversation;
+import org.eclipse.jetty.client.HttpRequest;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The {@link RateLimitedHttpClientTest} is a test class for the limits of the {@link RateLimitedHttpClient}
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class RateLimitedHttpClientTest {
+    private static final URI URL = URI.create("http://example.org/state");
+
+    private @NonNullByDefault({}) ScheduledExecutorService scheduler;
+    private @NonNullByDefault({}) RateLimitedHttpClient client;
+
+    @BeforeEach
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        // the requests are only created, never sent, so the Jetty client does not need to be started
+        client = new RateLimitedHttpClient(new TestHttpClient(), scheduler);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.shutdown();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void burstIsCreatedImmediatelyAndFurtherRequestsAreDelayed() throws Exception {
+        client.setDelay(200);
+        client.setBurst(2);
+
+        long start = System.nanoTime();
+        CompletableFuture<Request> first = refresh();
+        CompletableFuture<Request> second = refresh();
+        CompletableFuture<Request> third = refresh();
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertFalse(third.isDone());
+
+        third.get(5, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+    }
+
+    @Test
+    public void requestsInFlightAreLimited() throws Exception {
+        client.setMaxConcurrentRequests(2);
+
+        CompletableFuture<Request> first = refresh();
+        CompletableFuture<Request> second = refresh();
+        CompletableFuture<Request> third = refresh();
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertFalse(third.isDone());
+
+        complete(first.get());
+        assertTrue(third.isDone());
+    }
+
+    @Test
+    public void waitingCommandsAreCreatedBeforeWaitingRefreshes() throws Exception {
+        client.setMaxConcurrentRequests(1);
+
+        CompletableFuture<Request> first = refresh();
+        CompletableFuture<Request> refresh = refresh();
+        CompletableFuture<Request> command = client.newCommandRequest(URL, HttpMethod.POST, "ON", null);
+        assertTrue(first.isDone());
+
+        complete(first.get());
+        assertTrue(command.isDone());
+        assertFalse(refresh.isDone());
+
+        complete(command.get());
+        assertTrue(refresh.isDone());
+    }
+
+    @Test
+    public void requestIsReleasedIfTheCallerFails() throws Exception {
+        client.setMaxConcurrentRequests(1);
+
+        CompletableFuture<Void> failed = refresh().thenAccept(client.releaseOnFailure(request -> {
+            throw new IllegalStateException("preparing the request failed");
+        }));
+        CompletableFuture<Request> second = refresh();
+        assertTrue(failed.isCompletedExceptionally());
+        assertTrue(second.isDone());
+    }
+
+    @Test
+    public void requestIsReleasedOnlyOnce() throws Exception {
+        client.setMaxConcurrentRequests(1);
+
+        CompletableFuture<Request> first = refresh();
+        CompletableFuture<Request> second = refresh();
+        CompletableFuture<Request> third = refresh();
+
+        client.release(first.get());
+        assertTrue(second.isDone());
+
+        complete(first.get());
+        assertFalse(third.isDone());
+
+        complete(second.get());
+        assertTrue(third.isDone());
+    }
+
+    private CompletableFuture<Request> refresh() {
+        return client.newRequest(URL, HttpMethod.GET, "");
+    }
+
+    private static void complete(Request request) {
+        Result result = mock(Result.class);
+        ((TestRequest) request).getResponseListeners().stream().filter(Response.CompleteListener.class::isInstance)
+                .map(Response.CompleteListener.class::cast).forEach(listener -> listener.onComplete(result));
+    }
+
+    /**
+     * Creates requests which give access to their listeners, so the completion of a request can be simulated
+     */
+    private static class TestHttpClient extends HttpClient {
+        @Override
+        protected HttpRequest newHttpRequest(HttpConversation conversation, URI uri) {
+            return new TestRequest(this, conversation, uri);
+        }
+    }
+
+    private static class TestRequest extends HttpRequest {
+        public TestRequest(HttpClient client, HttpConversation conversation, URI uri) {
+            super(client, conversation, uri);
+        }
+
+        @Override
+        public List<Response.ResponseListener> getResponseListeners() {
+            return super.getResponseListeners();
+        }
+    }
+}
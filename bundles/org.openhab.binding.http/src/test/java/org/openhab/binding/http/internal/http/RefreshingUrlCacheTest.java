@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.binding.http.internal.config.HttpThingConfig;
+import org.openhab.core.thing.ThingUID;
+
+/**
+ * The {@link RefreshingUrlCacheTest} is a test class for the conditional requests of the {@link RefreshingUrlCache}
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class RefreshingUrlCacheTest {
+    private static final String URL = "http://example.org/state";
+    private static final String ETAG = "\"v1\"";
+    private static final String CONTENT = "{\"state\":\"ON\"}";
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final RateLimitedHttpClient httpClient = mock(RateLimitedHttpClient.class);
+    private final Request request = mock(Request.class);
+    private final HttpThingConfig config = new HttpThingConfig();
+    private final List<Content> received = new ArrayList<>();
+    private @Nullable Runnable refreshTask;
+
+    @BeforeEach
+    public void setUp() {
+        when(scheduler.scheduleWithFixedDelay(any(), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            refreshTask = invocation.getArgument(0);
+            return mock(ScheduledFuture.class);
+        });
+        when(httpClient.newRequest(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(request));
+        when(httpClient.releaseOnFailure(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    public void secondRequestIsConditionalAndNotModifiedContentIsPassedOn() {
+        RefreshingUrlCache cache = start();
+
+        refresh(HttpStatus.OK_200, CONTENT);
+        verify(request, never()).header(eq(HttpHeader.IF_NONE_MATCH), any());
+
+        refresh(HttpStatus.NOT_MODIFIED_304, "");
+        verify(request).header(HttpHeader.IF_NONE_MATCH, ETAG);
+
+        assertEquals(2, received.size());
+        assertSame(received.get(0), received.get(1));
+        assertEquals(CONTENT.length(), cache.getBytesSaved());
+        assertEquals(0, cache.getDispatchesSkipped());
+    }
+
+    @Test
+    public void unchangedContentIsSkippedIfConfigured() {
+        config.skipUnchanged = true;
+        RefreshingUrlCache cache = start();
+
+        refresh(HttpStatus.OK_200, CONTENT);
+        refresh(HttpStatus.NOT_MODIFIED_304, "");
+        // a server without validators sends the same content again
+        refresh(HttpStatus.OK_200, CONTENT);
+
+        assertEquals(1, received.size());
+        assertEquals(2, cache.getDispatchesSkipped());
+    }
+
+    @Test
+    public void changedContentIsPassedOnIfUnchangedIsSkipped() {
+        config.skipUnchanged = true;
+        start();
+
+        refresh(HttpStatus.OK_200, CONTENT);
+        refresh(HttpStatus.OK_200, "{\"state\":\"OFF\"}");
+
+        assertEquals(2, received.size());
+        assertEquals("{\"state\":\"OFF\"}", received.get(1).getAsString());
+    }
+
+    private RefreshingUrlCache start() {
+        RefreshingUrlCache cache = new RefreshingUrlCache(scheduler, URL, config, "");
+        cache.addConsumer(new ThingUID("http:url:test"), httpClient, new HttpResponseMetrics("http:url:test"),
+                config.refresh, received::add);
+        return cache;
+    }
+
+    private void refresh(int status, String content) {
+        Runnable refreshTask = this.refreshTask;
+        assertNotNull(refreshTask);
+        refreshTask.run();
+
+        ArgumentCaptor<Response.CompleteListener> listener = ArgumentCaptor.forClass(Response.CompleteListener.class);
+        verify(request, atLeastOnce()).send(listener.capture());
+        HttpFields headers = new HttpFields();
+        headers.put(HttpHeader.ETAG, ETAG);
+        HttpResponseListenerTest.respond((HttpResponseListener) listener.getValue(), status, headers, content);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.http.internal.config.HttpThingConfig;
+import org.openhab.core.thing.ThingUID;
+
+/**
+ * The {@link UrlFetchCoordinatorTest} is a test class for sharing {@link RefreshingUrlCache}s between things
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class UrlFetchCoordinatorTest {
+    private static final String URL = "http://example.org/state";
+    private static final ThingUID THING_1 = new ThingUID("http:url:thing1");
+    private static final ThingUID THING_2 = new ThingUID("http:url:thing2");
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final RateLimitedHttpClient httpClient = mock(RateLimitedHttpClient.class);
+    private final List<ScheduledFuture<?>> futures = new ArrayList<>();
+    private final UrlFetchCoordinator coordinator = new UrlFetchCoordinator(scheduler);
+
+    @BeforeEach
+    public void setUp() {
+        when(scheduler.scheduleWithFixedDelay(any(), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            ScheduledFuture<?> future = mock(ScheduledFuture.class);
+            futures.add(future);
+            return future;
+        });
+    }
+
+    @Test
+    public void thingsWithTheSameRequestShareTheCache() {
+        RefreshingUrlCache cache = subscribe(THING_1, URL, config(30));
+
+        assertSame(cache, subscribe(THING_2, URL, config(30)));
+        verify(scheduler, times(1)).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void thingsWithDifferentRequestsDoNotShareTheCache() {
+        RefreshingUrlCache cache = subscribe(THING_1, URL, config(30));
+
+        assertNotSame(cache, subscribe(THING_2, URL + "?other", config(30)));
+        HttpThingConfig otherHeaders = config(30);
+        otherHeaders.headers.add("Accept=application/json");
+        assertNotSame(cache, subscribe(THING_2, URL, otherHeaders));
+    }
+
+    @Test
+    public void cacheIsRefreshedWithTheShortestInterval() {
+        subscribe(THING_1, URL, config(30));
+        verify(scheduler).scheduleWithFixedDelay(any(), eq(1L), eq(30L), eq(TimeUnit.SECONDS));
+
+        subscribe(THING_2, URL, config(10));
+        verify(futures.get(0)).cancel(false);
+        verify(scheduler).scheduleWithFixedDelay(any(), eq(10L), eq(10L), eq(TimeUnit.SECONDS));
+
+        coordinator.unsubscribe(THING_2);
+        verify(futures.get(1)).cancel(false);
+        verify(scheduler).scheduleWithFixedDelay(any(), eq(30L), eq(30L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cacheIsStoppedWhenTheLastThingUnsubscribes() {
+        RefreshingUrlCache cache = subscribe(THING_1, URL, config(30));
+        subscribe(THING_2, URL, config(30));
+
+        coordinator.unsubscribe(THING_1);
+        verify(futures.get(0), never()).cancel(anyBoolean());
+
+        coordinator.unsubscribe(THING_2);
+        verify(futures.get(0)).cancel(false);
+        assertNotSame(cache, subscribe(THING_1, URL, config(30)));
+    }
+
+    private HttpThingConfig config(int refresh) {
+        HttpThingConfig config = new HttpThingConfig();
+        config.refresh = refresh;
+        return config;
+    }
+
+    private RefreshingUrlCache subscribe(ThingUID thingUID, String url, HttpThingConfig config) {
+        return coordinator.subscribe(thingUID, httpClient, new HttpResponseMetrics(thingUID.toString()), url, config,
+                "", content -> {
+                });
+    }
+}
@@ -56,6 +56,8 @@ public class ChannelState implements MqttMessageSubscriber {
     private @Nullable MqttBrokerConnection connection;
     protected final List<ChannelStateTransformation> transformationsIn = new ArrayList<>();
     protected final List<ChannelStateTransformation> transformationsOut = new ArrayList<>();
+    private volatile ChannelStateTransformation[] transformationChainIn = new ChannelStateTransformation[0];
+    private volatile ChannelStateTransformation[] transformationChainOut = new ChannelStateTransformation[0];
     private @Nullable ChannelStateUpdateListener channelStateUpdateListener;
     protected boolean hasSubscribed = false;
     private @Nullable ScheduledFuture<?> scheduledFuture;
@@ -92,6 +94,7 @@ public class ChannelState implements MqttMessageSubscriber {
      */
     public void addTransformation(ChannelStateTransformation transformation) {
         transformationsIn.add(transformation);
+        prepareTransformations();
     }
 
     /**
@@ -102,6 +105,7 @@ public class ChannelState implements MqttMessageSubscriber {
      */
     public void addTransformationOut(ChannelStateTransformation transformation) {
         transformationsOut.add(transformation);
+        prepareTransformations();
     }
 
     /**
@@ -110,6 +114,33 @@ public class ChannelState implements MqttMessageSubscriber {
     public void clearTransformations() {
         transformationsIn.clear();
         transformationsOut.clear();
+        prepareTransformations();
+    }
+
+    /**
+     * Snapshots the transformation chains into arrays, so that message processing neither iterates nor
+     * races with the mutable lists.
+     */
+    private void prepareTransformations() {
+        transformationChainIn = transformationsIn.toArray(new ChannelStateTransformation[0]);
+        transformationChainOut = transformationsOut.toArray(new ChannelStateTransformation[0]);
+    }
+
+    /**
+     * Resolves the transformation services of both chains once, instead of on the first message.
+     */
+    private void resolveTransformations() {
+        prepareTransformations();
+        for (ChannelStateTransformation t : transformationChainIn) {
+            if (t.resolve() == null) {
+                logger.debug("Transformation service {} for channel {} not available yet", t.serviceName, channelUID);
+            }
+        }
+        for (ChannelStateTransformation t : transformationChainOut) {
+            if (t.resolve() == null) {
+                logger.debug("Transformation service {} for channel {} not available yet", t.serviceName, channelUID);
+            }
+        }
     }
 
     /**
@@ -152,9 +183,20 @@ public class ChannelState implements MqttMessageSubscriber {
             return;
         }
 
+        final ChannelStateTransformation[] transformations = transformationChainIn;
+
+        // Plain payloads without transformations: Parse the bytes directly
+        if (transformations.length == 0 && !config.trigger) {
+            Command command = cachedValue.parseCommand(payload);
+            if (command != null) {
+                processCommand(channelStateUpdateListener, command, command);
+                return;
+            }
+        }
+
         // String value: Apply transformations
         String strValue = new String(payload, StandardCharsets.UTF_8);
-        for (ChannelStateTransformation t : transformationsIn) {
+        for (ChannelStateTransformation t : transformations) {
             String transformedValue = t.processValue(strValue);
             if (transformedValue != null) {
                 strValue = transformedValue;
@@ -180,6 +222,11 @@ public class ChannelState implements MqttMessageSubscriber {
             return;
         }
 
+        processCommand(channelStateUpdateListener, command, strValue);
+    }
+
+    private void processCommand(ChannelStateUpdateListener channelStateUpdateListener, Command command,
+            Object payload) {
         Command postOnlyCommand = cachedValue.isPostOnly(command);
         if (postOnlyCommand != null) {
             channelStateUpdateListener.postChannelCommand(channelUID, postOnlyCommand);
@@ -191,7 +238,7 @@ public class ChannelState implements MqttMessageSubscriber {
         try {
             cachedValue.update(command);
         } catch (IllegalArgumentException | IllegalStateException e) {
-            logger.warn("Command '{}' not supported by type '{}': {}", strValue, cachedValue.getClass().getSimpleName(),
+            logger.warn("Command '{}' not supported by type '{}': {}", payload, cachedValue.getClass().getSimpleName(),
                     e.getMessage());
             receivedOrTimeout();
             return;
@@ -295,6 +342,7 @@ public class ChannelState implements MqttMessageSubscriber {
             hasSubscribed = false;
 
             this.connection = connection;
+            resolveTransformations();
 
             if (config.stateTopic.isBlank()) {
                 return CompletableFuture.completedFuture(null);
@@ -352,7 +400,7 @@ public class ChannelState implements MqttMessageSubscriber {
         }
 
         // Outgoing transformations
-        for (ChannelStateTransformation t : transformationsOut) {
+        for (ChannelStateTransformation t : transformationChainOut) {
             String commandString = mqttCommandValue.getMQTTpublishValue(null);
             String transformedValue = t.processValue(commandString);
             if (transformedValue != null) {
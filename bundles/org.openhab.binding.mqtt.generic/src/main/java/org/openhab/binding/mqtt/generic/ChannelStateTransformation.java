@@ -77,14 +77,10 @@ public class ChannelStateTransformation {
      * @return The transformed value
      */
     protected @Nullable String processValue(String value) {
-        TransformationService transformationService = this.transformationService.get();
+        TransformationService transformationService = resolve();
         if (transformationService == null) {
-            transformationService = provider.getTransformationService(serviceName);
-            if (transformationService == null) {
-                logger.warn("Transformation service {} for pattern {} not found!", serviceName, pattern);
-                return value;
-            }
-            this.transformationService = new WeakReference<>(transformationService);
+            logger.warn("Transformation service {} for pattern {} not found!", serviceName, pattern);
+            return value;
         }
         String returnValue = null;
         try {
@@ -94,4 +90,21 @@ public class ChannelStateTransformation {
         }
         return returnValue;
     }
+
+    /**
+     * Looks up the transformation service, if not already done, and caches it for the following messages.
+     * Called by the {@link ChannelState} when it is started, so that the first message does not pay for the lookup.
+     *
+     * @return The transformation service or null if it is not (yet) available
+     */
+    protected @Nullable TransformationService resolve() {
+        TransformationService transformationService = this.transformationService.get();
+        if (transformationService == null) {
+            transformationService = provider.getTransformationService(serviceName);
+            if (transformationService != null) {
+                this.transformationService = new WeakReference<>(transformationService);
+            }
+        }
+        return transformationService;
+    }
 }
@@ -43,6 +43,8 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class NumberValue extends Value {
+    private static final int MAX_PLAIN_NUMBER_LENGTH = 64;
+
     private final Logger logger = LoggerFactory.getLogger(NumberValue.class);
     private final @Nullable BigDecimal min;
     private final @Nullable BigDecimal max;
@@ -133,6 +135,38 @@ public class NumberValue extends Value {
         }
     }
 
+    /**
+     * Parses plain decimal payloads like "-12.5" straight from the bytes. Exponents, signs other than
+     * a leading minus and anything with a unit are left to the generic parsing.
+     */
+    @Override
+    public @Nullable Command parseCommand(byte[] payload) {
+        int length = payload.length;
+        if (length == 0 || length > MAX_PLAIN_NUMBER_LENGTH) {
+            return null;
+        }
+        char[] chars = new char[length];
+        int digits = 0;
+        boolean dot = false;
+        for (int i = 0; i < length; i++) {
+            byte b = payload[i];
+            if (b >= '0' && b <= '9') {
+                digits++;
+            } else if (b == '-' && i == 0) {
+                // leading sign
+            } else if (b == '.' && !dot && digits > 0 && i < length - 1) {
+                dot = true;
+            } else {
+                return null;
+            }
+            chars[i] = (char) b;
+        }
+        if (digits == 0) {
+            return null;
+        }
+        return new DecimalType(new BigDecimal(chars, 0, length));
+    }
+
     @Override
     public StateDescriptionFragmentBuilder createStateDescription(boolean readOnly) {
         StateDescriptionFragmentBuilder builder = super.createStateDescription(readOnly);
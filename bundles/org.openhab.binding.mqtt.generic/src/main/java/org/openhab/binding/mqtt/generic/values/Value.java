@@ -136,6 +136,20 @@ public abstract class Value {
         return null;
     }
 
+    /**
+     * Parses a raw, untransformed MQTT payload into a command without decoding it into a String first.
+     * <p>
+     * This is a fast path for frequent, simple payloads. Implementations must only return a command
+     * if {@link #update(Command)} would end up in the same state as with the generic string parsing
+     * based on {@link #getSupportedCommandTypes()}. Returns null if the payload needs the generic parsing.
+     * </p>
+     *
+     * @param payload The UTF-8 encoded payload
+     */
+    public @Nullable Command parseCommand(byte[] payload) {
+        return null;
+    }
+
     /**
      * Updates the internal value state with the given binary payload.
      *
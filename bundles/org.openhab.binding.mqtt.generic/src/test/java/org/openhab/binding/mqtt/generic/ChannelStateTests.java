@@ -46,10 +46,12 @@ import org.openhab.binding.mqtt.generic.values.DateTimeValue;
 import org.openhab.binding.mqtt.generic.values.ImageValue;
 import org.openhab.binding.mqtt.generic.values.LocationValue;
 import org.openhab.binding.mqtt.generic.values.NumberValue;
+import org.openhab.binding.mqtt.generic.values.OnOffValue;
 import org.openhab.binding.mqtt.generic.values.PercentageValue;
 import org.openhab.binding.mqtt.generic.values.TextValue;
 import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
 import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
 import org.openhab.core.library.types.RawType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.thing.ChannelUID;
@@ -185,6 +187,44 @@ public class ChannelStateTests {
         assertThat(value.getChannelState().toString(), is("16.0"));
     }
 
+    @Test
+    public void receiveOnOffTest() {
+        OnOffValue value = spy(new OnOffValue("1", "0"));
+        ChannelState c = spy(new ChannelState(config, channelUID, value, channelStateUpdateListener));
+        c.start(connection, mock(ScheduledExecutorService.class), 100);
+
+        c.processMessage("state", "1".getBytes());
+        assertThat(value.getChannelState(), is(OnOffType.ON));
+
+        c.processMessage("state", "0".getBytes());
+        assertThat(value.getChannelState(), is(OnOffType.OFF));
+
+        c.processMessage("state", "ON".getBytes());
+        assertThat(value.getChannelState(), is(OnOffType.ON));
+
+        // Neither a framework nor a custom state: Falls back to the generic parsing, which rejects it
+        c.processMessage("state", "2".getBytes());
+        assertThat(value.getChannelState(), is(OnOffType.ON));
+
+        verify(value, times(4)).parseCommand(any());
+        verify(channelStateUpdateListener, times(3)).updateChannelState(eq(channelUID), any());
+    }
+
+    @Test
+    public void receiveDecimalWithTransformationTest() {
+        NumberValue value = spy(new NumberValue(null, null, null, null));
+        ChannelState c = spy(new ChannelState(config, channelUID, value, channelStateUpdateListener));
+        ChannelStateTransformation transformation = mock(ChannelStateTransformation.class);
+        doReturn("42").when(transformation).processValue(anyString());
+        c.addTransformation(transformation);
+        c.start(connection, mock(ScheduledExecutorService.class), 100);
+        verify(transformation).resolve();
+
+        c.processMessage("state", "15".getBytes());
+        assertThat(value.getChannelState().toString(), is("42"));
+        verify(value, never()).parseCommand(any());
+    }
+
     @Test
     public void receivePercentageTest() {
         PercentageValue value = new PercentageValue(new BigDecimal(-100), new BigDecimal(100), new BigDecimal(10), null,
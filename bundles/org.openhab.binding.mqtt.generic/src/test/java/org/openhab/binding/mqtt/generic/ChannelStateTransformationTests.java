@@ -120,4 +120,21 @@ public class ChannelStateTransformationTests {
         verify(callback).stateUpdated(eq(textChannelUID), argThat(arg -> "23.2".equals(arg.toString())));
         assertThat(channelConfig.getCache().getChannelState().toString(), is("23.2"));
     }
+
+    @SuppressWarnings("null")
+    @Test
+    public void transformationServiceResolvedOnStart() throws Exception {
+        when(jsonPathService.transform(jsonPathPattern, jsonPathJSON)).thenReturn("23.2");
+
+        thingHandler.initialize();
+        ChannelState channelConfig = thingHandler.getChannelState(textChannelUID);
+        verify(transformationServiceProvider).getTransformationService("JSONPATH");
+        channelConfig.setChannelStateUpdateListener(thingHandler);
+
+        channelConfig.processMessage(channelConfig.getStateTopic(), jsonPathJSON.getBytes());
+        channelConfig.processMessage(channelConfig.getStateTopic(), jsonPathJSON.getBytes());
+
+        verify(jsonPathService, times(2)).transform(jsonPathPattern, jsonPathJSON);
+        verify(transformationServiceProvider, times(1)).getTransformationService(anyString());
+    }
 }
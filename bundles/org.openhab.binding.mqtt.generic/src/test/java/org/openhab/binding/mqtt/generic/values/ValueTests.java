@@ -316,4 +316,41 @@ public class ValueTests {
                 null);
         assertThrows(IllegalArgumentException.class, () -> v.update(new DecimalType(9.0)));
     }
+
+    @Test
+    public void numberParseCommandFromBytes() {
+        NumberValue v = new NumberValue(null, null, null, null);
+        for (String str : new String[] { "0", "15", "-100", "5.5", "-0.25", "007" }) {
+            Command command = v.parseCommand(str.getBytes());
+            assertEquals(new DecimalType(new BigDecimal(str)), command);
+
+            NumberValue generic = new NumberValue(null, null, null, null);
+            generic.update(p(generic, str));
+            v.update(command);
+            assertEquals(generic.getChannelState(), v.getChannelState());
+        }
+
+        // Left to the generic parsing
+        for (String str : new String[] { "", "-", "1.", ".5", "+1", "1e3", "1.2.3", "12 °C", "INCREASE", "NaN" }) {
+            assertNull(v.parseCommand(str.getBytes()), str);
+        }
+    }
+
+    @Test
+    public void onoffParseCommandFromBytes() {
+        OnOffValue v = new OnOffValue("fancyON", "fancyOff");
+        assertThat(v.parseCommand("fancyON".getBytes()), is(OnOffType.ON));
+        assertThat(v.parseCommand("fancyOff".getBytes()), is(OnOffType.OFF));
+        assertThat(v.parseCommand("ON".getBytes()), is(OnOffType.ON));
+        assertThat(v.parseCommand("OFF".getBytes()), is(OnOffType.OFF));
+        assertNull(v.parseCommand("fancyon".getBytes()));
+        assertNull(v.parseCommand("on".getBytes()));
+
+        // The framework names take precedence over swapped custom states, like in the generic parsing
+        OnOffValue inverted = new OnOffValue("OFF", "ON");
+        for (String str : new String[] { "ON", "OFF" }) {
+            inverted.update(p(inverted, str));
+            assertEquals(inverted.getChannelState(), inverted.parseCommand(str.getBytes()));
+        }
+    }
 }
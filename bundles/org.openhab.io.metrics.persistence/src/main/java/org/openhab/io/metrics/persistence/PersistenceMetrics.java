@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.metrics.persistence;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.persistence.HistoricItem;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Store and query meters of a persistence service, tagged with the service id. The meters are removed from the
+ * registry by {@link #close()}.
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class PersistenceMetrics {
+    private static final String PREFIX = "openhab.persistence.";
+
+    /** a composite registry without registries, its meters do not record anything */
+    private static final MeterRegistry NOOP_REGISTRY = new CompositeMeterRegistry();
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final List<Meter> meters = new CopyOnWriteArrayList<>();
+    private final Timer storeTimer;
+    private final Counter storeValues;
+    private final Counter storeErrors;
+    private final Timer queryTimer;
+    private final Counter queryErrors;
+    private final DistributionSummary queryRows;
+
+    /**
+     * Creates meters which do not record anything, for use as long as no registry is available. They are shared by
+     * all services, so no registry is created per service.
+     */
+    public PersistenceMetrics(String serviceId) {
+        this(NOOP_REGISTRY, serviceId);
+    }
+
+    public PersistenceMetrics(MeterRegistry registry, String serviceId) {
+        this(registry, serviceId, Tags.empty());
+    }
+
+    /**
+     * Creates meters tagged with the service id and the given tags, e.g. to tell several database types of one service
+     * apart
+     */
+    public PersistenceMetrics(MeterRegistry registry, String serviceId, Tags additionalTags) {
+        this.registry = registry;
+        this.tags = Tags.of("service", serviceId).and(additionalTags);
+        storeTimer = add(Timer.builder(PREFIX + "store").description("Time to write to the database").tags(tags)
+                .publishPercentileHistogram().register(registry));
+        storeValues = add(Counter.builder(PREFIX + "store.values").description("Item states written to the database")
+                .tags(tags).register(registry));
+        storeErrors = add(Counter.builder(PREFIX + "store.errors").description("Item states which failed to store")
+                .tags(tags).register(registry));
+        queryTimer = add(Timer.builder(PREFIX + "query").description("Time to run a query").tags(tags)
+                .publishPercentileHistogram().register(registry));
+        queryErrors = add(
+                Counter.builder(PREFIX + "query.errors").description("Failed queries").tags(tags).register(registry));
+        queryRows = add(DistributionSummary.builder(PREFIX + "query.rows").description("Rows returned by a query")
+                .tags(tags).register(registry));
+    }
+
+    /**
+     * Records a successful write of <code>count</code> item states, which took the time since <code>startNanos</code>,
+     * taken from {@link System#nanoTime()}
+     */
+    public void recordStore(long startNanos, int count) {
+        storeTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        storeValues.increment(count);
+    }
+
+    public void storeFailed(int count) {
+        storeErrors.increment(count);
+    }
+
+    /**
+     * Records the time since <code>startNanos</code> as query latency and the number of rows of the result. Results
+     * which are read lazily are measured when they have been iterated completely, or counted as failed query if
+     * reading them fails.
+     *
+     * @return the result, to be returned by the query
+     */
+    public Iterable<HistoricItem> recordQuery(long startNanos, Iterable<HistoricItem> result) {
+        if (result instanceof Collection) {
+            queryTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            queryRows.record(((Collection<?>) result).size());
+            return result;
+        }
+        return () -> new CountingIterator(startNanos, result.iterator());
+    }
+
+    public void queryFailed() {
+        queryErrors.increment();
+    }
+
+    /**
+     * Registers a gauge, e.g. for a queue length
+     */
+    public <T> void gauge(String name, String description, T obj, ToDoubleFunction<T> value) {
+        add(Gauge.builder(PREFIX + name, obj, value).description(description).tags(tags).register(registry));
+    }
+
+    /**
+     * Registers a counter whose value is maintained elsewhere, e.g. for dropped values
+     */
+    public <T> void counter(String name, String description, T obj, ToDoubleFunction<T> value) {
+        add(FunctionCounter.builder(PREFIX + name, obj, value).description(description).tags(tags)
+                .register(registry));
+    }
+
+    public void close() {
+        meters.forEach(registry::remove);
+        meters.clear();
+    }
+
+    private <M extends Meter> M add(M meter) {
+        meters.add(meter);
+        return meter;
+    }
+
+    private class CountingIterator implements Iterator<HistoricItem> {
+        private final long startNanos;
+        private final Iterator<HistoricItem> delegate;
+        private int rows;
+        private boolean recorded;
+
+        CountingIterator(long startNanos, Iterator<HistoricItem> delegate) {
+            this.startNanos = startNanos;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext;
+            try {
+                hasNext = delegate.hasNext();
+            } catch (RuntimeException e) {
+                failed();
+                throw e;
+            }
+            if (!hasNext && !recorded) {
+                recorded = true;
+                queryTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                queryRows.record(rows);
+            }
+            return hasNext;
+        }
+
+        @Override
+        public HistoricItem next() {
+            HistoricItem next;
+            try {
+                next = delegate.next();
+            } catch (RuntimeException e) {
+                failed();
+                throw e;
+            }
+            rows++;
+            return next;
+        }
+
+        private void failed() {
+            if (!recorded) {
+                recorded = true;
+                queryErrors.increment();
+            }
+        }
+    }
+}
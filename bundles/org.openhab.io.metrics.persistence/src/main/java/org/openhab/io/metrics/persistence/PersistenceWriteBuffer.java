@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.metrics.persistence;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind buffer of a persistence service. Values are collected and handed over to the writer of the service in
+ * batches, either after the flush interval (plus a random jitter) or as soon as a batch is full, so storing an item
+ * never waits for the database.
+ *
+ * <p>
+ * If the writer can't write a batch, e.g. because the database is unreachable, the values are put back and retained
+ * together with all values stored afterwards. They are written in order once the database accepts writes again.
+ *
+ * <p>
+ * If the buffer is full while the database accepts writes, storing waits for up to one flush interval for space.
+ * Otherwise, or if there is still no space, the oldest buffered value is dropped.
+ *
+ * @param <T> the type of the buffered values
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class PersistenceWriteBuffer<T> {
+    private final Logger logger = LoggerFactory.getLogger(PersistenceWriteBuffer.class);
+
+    private static final int DROPPED_LOG_INTERVAL = 1000;
+
+    private final String serviceId;
+    private final Predicate<List<T>> writer;
+    private final int batchSize;
+    private final int flushInterval;
+    private final int jitterInterval;
+    private final int capacity;
+
+    private final Deque<T> pending = new ArrayDeque<>();
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private volatile boolean failing;
+    private volatile @Nullable PersistenceMetrics metrics;
+
+    /**
+     * @param serviceId the id of the persistence service, used for the name of the flush thread and in log messages
+     * @param writer writes a batch of values and returns <code>false</code> if it should be retried later, called
+     *            from the flush thread only
+     * @param batchSize maximum number of values handed to the writer at once
+     * @param flushInterval time in milliseconds between two flushes
+     * @param jitterInterval maximum random time in milliseconds added to the flush interval
+     * @param capacity maximum number of buffered values
+     */
+    public PersistenceWriteBuffer(String serviceId, Predicate<List<T>> writer, int batchSize, int flushInterval,
+            int jitterInterval, int capacity) {
+        this.serviceId = serviceId;
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.jitterInterval = jitterInterval;
+        this.capacity = Math.max(capacity, batchSize);
+        executor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("persistence-" + serviceId + "-writer"));
+        // close() discards the scheduled flush and flushes itself
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        scheduleFlush();
+        logger.debug("Write buffer of {}: batchSize={} flushInterval={} jitterInterval={} capacity={}", serviceId,
+                batchSize, flushInterval, jitterInterval, capacity);
+    }
+
+    /**
+     * Adds a value to the buffer
+     *
+     * @return false if the buffer was full and the oldest buffered value was dropped
+     */
+    public boolean offer(T value) {
+        boolean full;
+        int size;
+        synchronized (pending) {
+            if (pending.size() >= capacity && !failing) {
+                awaitSpace();
+            }
+            full = pending.size() >= capacity;
+            if (full) {
+                pending.pollFirst();
+            }
+            pending.addLast(value);
+            size = pending.size();
+        }
+        if (full) {
+            countDropped(1);
+        }
+        // while failing, retrying is left to the scheduled flushes
+        if (size >= batchSize && !failing) {
+            requestFlush();
+        }
+        return !full;
+    }
+
+    /**
+     * Stops the flush thread and makes a last attempt to write all buffered values.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Write buffer of {} did not terminate in time", serviceId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        int remaining;
+        synchronized (pending) {
+            remaining = pending.size();
+            pending.clear();
+            pending.notifyAll();
+        }
+        if (remaining > 0) {
+            dropped.addAndGet(remaining);
+            logger.warn("Write buffer of {} closed, {} values could not be written", serviceId, remaining);
+        }
+    }
+
+    /**
+     * Sets the metrics the writes are recorded with. Services whose writer records the writes itself do not set them.
+     */
+    public void setMetrics(PersistenceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public int getBufferedCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    // Visible for testing
+    void flush() {
+        flushRequested.set(false);
+        List<T> batch = new ArrayList<>(batchSize);
+        while (true) {
+            synchronized (pending) {
+                while (batch.size() < batchSize && !pending.isEmpty()) {
+                    batch.add(pending.pollFirst());
+                }
+                pending.notifyAll();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!write(batch)) {
+                putBack(batch);
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Waits for up to one flush interval until the flush thread made space, called with the lock on the buffer
+     */
+    private void awaitSpace() {
+        requestFlush();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        try {
+            long remaining;
+            while (pending.size() >= capacity && !failing && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(pending, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean write(List<T> batch) {
+        boolean success;
+        long start = System.nanoTime();
+        try {
+            success = writer.test(batch);
+        } catch (RuntimeException e) {
+            // must not escape, it would stop the scheduled flushes
+            logger.debug("Writing {} values of {} failed", batch.size(), serviceId, e);
+            success = false;
+        }
+        PersistenceMetrics metrics = this.metrics;
+        if (success) {
+            if (metrics != null) {
+                metrics.recordStore(start, batch.size());
+            }
+            written.addAndGet(batch.size());
+            if (failing) {
+                failing = false;
+                logger.info("{} accepts writes again, writing {} buffered values", serviceId, getBufferedCount());
+            }
+        } else {
+            if (metrics != null) {
+                metrics.storeFailed(batch.size());
+            }
+            if (!failing) {
+                failing = true;
+                logger.warn("Writing to {} failed, buffering up to {} values until it is available again", serviceId,
+                        capacity);
+            }
+        }
+        return success;
+    }
+
+    private void putBack(List<T> batch) {
+        int overflow;
+        synchronized (pending) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                pending.addFirst(batch.get(i));
+            }
+            overflow = Math.max(pending.size() - capacity, 0);
+            for (int i = 0; i < overflow; i++) {
+                pending.pollFirst();
+            }
+            // storing does not wait for space while failing
+            pending.notifyAll();
+        }
+        if (overflow > 0) {
+            countDropped(overflow);
+        }
+    }
+
+    private void countDropped(int count) {
+        long before = dropped.getAndAdd(count);
+        if (before / DROPPED_LOG_INTERVAL != (before + count) / DROPPED_LOG_INTERVAL || before == 0) {
+            logger.warn("Write buffer of {} is full, {} values dropped so far", serviceId, before + count);
+        }
+    }
+
+    private void scheduleFlush() {
+        long delay = flushInterval + (jitterInterval > 0 ? ThreadLocalRandom.current().nextInt(jitterInterval) : 0);
+        try {
+            executor.schedule(() -> {
+                flush();
+                scheduleFlush();
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // closing
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // closing, the remaining values are written by close()
+                flushRequested.set(false);
+            }
+        }
+    }
+}
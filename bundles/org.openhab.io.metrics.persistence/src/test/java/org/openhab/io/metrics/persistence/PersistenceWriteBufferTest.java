@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.metrics.persistence;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class PersistenceWriteBufferTest {
+    // long enough to never flush on its own while a test runs
+    private static final int FLUSH_INTERVAL = 600000;
+
+    private final List<List<Integer>> batches = new ArrayList<>();
+    private volatile boolean available = true;
+    private PersistenceWriteBuffer<Integer> instance;
+
+    private synchronized boolean write(List<Integer> values) {
+        if (available) {
+            batches.add(new ArrayList<>(values));
+        }
+        return available;
+    }
+
+    private synchronized List<Integer> writtenValues() {
+        return batches.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    @AfterEach
+    public void after() {
+        if (instance != null) {
+            instance.close();
+        }
+    }
+
+    @Test
+    public void closeWritesAllValuesInBatches() {
+        instance = new PersistenceWriteBuffer<>("test", this::write, 10, FLUSH_INTERVAL, 0, 100);
+        IntStream.range(0, 25).forEach(instance::offer);
+        instance.close();
+
+        assertThat(writtenValues(), is(IntStream.range(0, 25).boxed().collect(Collectors.toList())));
+        assertThat(batches.stream().allMatch(batch -> batch.size() <= 10), is(true));
+        assertThat(instance.getWrittenCount(), is(25L));
+        assertThat(instance.getBufferedCount(), is(0));
+        instance = null;
+    }
+
+    @Test
+    public void failedValuesAreRetainedAndWrittenLater() {
+        instance = new PersistenceWriteBuffer<>("test", this::write, 100, FLUSH_INTERVAL, 0, 100);
+        available = false;
+        IntStream.range(0, 5).forEach(instance::offer);
+        instance.flush();
+
+        assertThat(instance.getBufferedCount(), is(5));
+        assertThat(instance.getWrittenCount(), is(0L));
+
+        available = true;
+        instance.offer(5);
+        instance.flush();
+
+        assertThat(writtenValues(), contains(0, 1, 2, 3, 4, 5));
+        assertThat(instance.getBufferedCount(), is(0));
+        assertThat(instance.getWrittenCount(), is(6L));
+        assertThat(instance.getDroppedCount(), is(0L));
+    }
+
+    @Test
+    public void oldestValuesAreDroppedWhenFullWhileFailing() {
+        instance = new PersistenceWriteBuffer<>("test", this::write, 3, FLUSH_INTERVAL, 0, 3);
+        available = false;
+        instance.offer(1);
+        instance.flush();
+        IntStream.range(2, 6).forEach(instance::offer);
+
+        assertThat(instance.getBufferedCount(), is(3));
+        assertThat(instance.getDroppedCount(), is(2L));
+
+        available = true;
+        instance.flush();
+
+        assertThat(writtenValues(), contains(3, 4, 5));
+    }
+
+    @Test
+    public void storingWaitsForSpaceWhenFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        instance = new PersistenceWriteBuffer<>("test", values -> {
+            writing.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return write(values);
+        }, 2, FLUSH_INTERVAL, 0, 2);
+
+        // the first batch is taken by the flush thread, which is then blocked in the writer
+        instance.offer(1);
+        instance.offer(2);
+        assertThat(writing.await(10, TimeUnit.SECONDS), is(true));
+        instance.offer(3);
+        instance.offer(4);
+        assertThat(instance.getBufferedCount(), is(2));
+
+        // the buffer is full, so storing waits until the flush thread took the next batch
+        CompletableFuture<Boolean> stored = CompletableFuture.supplyAsync(() -> instance.offer(5));
+        Thread.sleep(100);
+        assertThat(stored.isDone(), is(false));
+        proceed.countDown();
+        assertThat(stored.get(10, TimeUnit.SECONDS), is(true));
+        instance.close();
+
+        assertThat(writtenValues(), contains(1, 2, 3, 4, 5));
+        assertThat(instance.getDroppedCount(), is(0L));
+        instance = null;
+    }
+}
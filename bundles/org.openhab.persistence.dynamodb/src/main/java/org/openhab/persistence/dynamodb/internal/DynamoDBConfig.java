@@ -50,6 +50,9 @@ public class DynamoDBConfig {
     public static final long DEFAULT_READ_CAPACITY_UNITS = 1;
     public static final long DEFAULT_WRITE_CAPACITY_UNITS = 1;
     public static final RetryMode DEFAULT_RETRY_MODE = RetryMode.STANDARD;
+    public static final int DEFAULT_BATCH_SIZE = 0;
+    public static final int DEFAULT_BATCH_INTERVAL = 1000;
+    public static final int DEFAULT_BUFFER_SIZE = 10000;
     private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDBConfig.class);
 
     private long readCapacityUnits;
@@ -61,6 +64,9 @@ public class DynamoDBConfig {
     private String table;
     private String tablePrefixLegacy;
     private @Nullable Integer expireDays;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int batchInterval = DEFAULT_BATCH_INTERVAL;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
 
     /**
      *
@@ -166,30 +172,61 @@ public class DynamoDBConfig {
                 }
             }
 
+            int batchSize = parseInt(config, "batchSize", DEFAULT_BATCH_SIZE);
+            if (batchSize > DynamoDBWriteBuffer.MAX_BATCH_SIZE) {
+                LOGGER.warn("batchSize {} exceeds the DynamoDB limit, using {}", batchSize,
+                        DynamoDBWriteBuffer.MAX_BATCH_SIZE);
+                batchSize = DynamoDBWriteBuffer.MAX_BATCH_SIZE;
+            }
+            int batchInterval = parseInt(config, "batchInterval", DEFAULT_BATCH_INTERVAL);
+            int bufferSize = parseInt(config, "bufferSize", DEFAULT_BUFFER_SIZE);
+            if (batchInterval <= 0 || bufferSize <= 0) {
+                LOGGER.error("batchInterval and bufferSize should be positive integers");
+                return null;
+            }
+
+            final DynamoDBConfig dbConfig;
             switch (tableRevision) {
                 case NEW:
                     LOGGER.debug("Using new DynamoDB table schema");
-                    return DynamoDBConfig.newSchema(region, credentials, AwsRetryPolicy.forRetryMode(retryMode), table,
-                            readCapacityUnits, writeCapacityUnits, expireDays);
+                    dbConfig = DynamoDBConfig.newSchema(region, credentials, AwsRetryPolicy.forRetryMode(retryMode),
+                            table, readCapacityUnits, writeCapacityUnits, expireDays);
+                    break;
                 case LEGACY:
                     LOGGER.warn(
                             "Using legacy DynamoDB table schema. It is recommended to transition to new schema by defining 'table' parameter and not configuring 'tablePrefix'");
-                    return DynamoDBConfig.legacySchema(region, credentials, AwsRetryPolicy.forRetryMode(retryMode),
+                    dbConfig = DynamoDBConfig.legacySchema(region, credentials, AwsRetryPolicy.forRetryMode(retryMode),
                             tablePrefixLegacy, readCapacityUnits, writeCapacityUnits);
+                    break;
                 case MAYBE_LEGACY:
                     LOGGER.debug(
                             "Unclear whether we should use new legacy DynamoDB table schema. It is recommended to explicitly define new 'table' parameter. The correct table schema will be detected at runtime.");
-                    return DynamoDBConfig.maybeLegacySchema(region, credentials, AwsRetryPolicy.forRetryMode(retryMode),
-                            table, tablePrefixLegacy, readCapacityUnits, writeCapacityUnits, expireDays);
+                    dbConfig = DynamoDBConfig.maybeLegacySchema(region, credentials,
+                            AwsRetryPolicy.forRetryMode(retryMode), table, tablePrefixLegacy, readCapacityUnits,
+                            writeCapacityUnits, expireDays);
+                    break;
                 default:
                     throw new IllegalStateException("Unhandled enum. Bug");
             }
+            dbConfig.batchSize = batchSize;
+            dbConfig.batchInterval = batchInterval;
+            dbConfig.bufferSize = bufferSize;
+            return dbConfig;
         } catch (Exception e) {
             LOGGER.error("Error with configuration: {} {}", e.getClass().getSimpleName(), e.getMessage());
             return null;
         }
     }
 
+    private static int parseInt(Map<String, Object> config, String key, int defaultValue) {
+        // integer parameters are Strings in configuration files, but Numbers when configured in the UI
+        Object value = config.get(key);
+        if (value == null || value.toString().isBlank()) {
+            return defaultValue;
+        }
+        return Integer.parseInt(value.toString());
+    }
+
     private static DynamoDBConfig newSchema(Region region, AwsCredentials credentials, RetryPolicy retryPolicy,
             String table, long readCapacityUnits, long writeCapacityUnits, @Nullable Integer expireDays) {
         return new DynamoDBConfig(region, credentials, retryPolicy, table, "", ExpectedTableSchema.NEW,
@@ -258,4 +295,25 @@ public class DynamoDBConfig {
     public @Nullable Integer getExpireDays() {
         return expireDays;
     }
+
+    /**
+     * @return maximum number of items written with one BatchWriteItem request. Values below 2 disable batching.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return maximum time in milliseconds an item is buffered before it is written
+     */
+    public int getBatchInterval() {
+        return batchInterval;
+    }
+
+    /**
+     * @return maximum number of items waiting to be written
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
 }
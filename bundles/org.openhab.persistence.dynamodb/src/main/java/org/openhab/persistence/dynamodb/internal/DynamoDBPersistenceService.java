@@ -28,6 +28,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 import javax.measure.Unit;
@@ -36,6 +37,7 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.core.ConfigurableService;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
 import org.openhab.core.items.GenericItem;
 import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
@@ -51,12 +53,15 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.openhab.io.metrics.persistence.PersistenceMetrics;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.reactivestreams.Subscriber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -101,6 +106,7 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
     protected static final String CONFIG_URI = "persistence:dynamodb";
 
     private static final String DYNAMODB_THREADPOOL_NAME = "dynamodbPersistenceService";
+    private static final String SERVICE_ID = "dynamodb";
 
     private ItemRegistry itemRegistry;
     private @Nullable DynamoDbEnhancedAsyncClient client;
@@ -109,6 +115,9 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
     private boolean isProperlyConfigured;
     private @Nullable DynamoDBConfig dbConfig;
     private @Nullable DynamoDBTableNameResolver tableNameResolver;
+    private @Nullable DynamoDBWriteBuffer writeBuffer;
+    private @Nullable MeterRegistryProvider meterRegistryProvider;
+    private volatile PersistenceMetrics metrics = new PersistenceMetrics(SERVICE_ID);
     private final ExecutorService executor = ThreadPoolManager.getPool(DYNAMODB_THREADPOOL_NAME);
     private static final Duration TIMEOUT_API_CALL = Duration.ofSeconds(60);
     private static final Duration TIMEOUT_API_CALL_ATTEMPT = Duration.ofSeconds(5);
@@ -169,6 +178,11 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         return dbConfig;
     }
 
+    @Nullable
+    DynamoDBWriteBuffer getWriteBuffer() {
+        return writeBuffer;
+    }
+
     @Activate
     public void activate(final @Nullable BundleContext bundleContext, final Map<String, Object> config) {
         disconnect();
@@ -190,6 +204,11 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
             return;
         }
 
+        if (localDbConfig.getBatchSize() > 1) {
+            writeBuffer = new DynamoDBWriteBuffer(this, localDbConfig.getBatchSize(),
+                    localDbConfig.getBatchInterval(), localDbConfig.getBufferSize());
+        }
+
         isProperlyConfigured = true;
         logger.debug("dynamodb persistence service activated");
     }
@@ -269,7 +288,7 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
-    private <T extends DynamoDBItem<?>> DynamoDbAsyncTable<T> getTable(Class<T> dtoClass) {
+    <T extends DynamoDBItem<?>> DynamoDbAsyncTable<T> getTable(Class<T> dtoClass) {
         DynamoDbEnhancedAsyncClient localClient = client;
         DynamoDBTableNameResolver localTableNameResolver = tableNameResolver;
         if (!ensureClient() || localClient == null || localTableNameResolver == null) {
@@ -309,6 +328,12 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
     }
 
     private void disconnect() {
+        DynamoDBWriteBuffer localWriteBuffer = writeBuffer;
+        if (localWriteBuffer != null) {
+            // writes the buffered items, the client is still needed
+            localWriteBuffer.close();
+            writeBuffer = null;
+        }
         DynamoDbAsyncClient localLowLevelClient = lowLevelClient;
         if (client == null || localLowLevelClient == null) {
             return;
@@ -326,9 +351,43 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         return isProperlyConfigured && ensureClient();
     }
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected void setMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        setMetrics(new PersistenceMetrics(meterRegistryProvider.getOHMeterRegistry(), SERVICE_ID));
+    }
+
+    protected void unsetMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        if (this.meterRegistryProvider == meterRegistryProvider) {
+            this.meterRegistryProvider = null;
+            setMetrics(new PersistenceMetrics(SERVICE_ID));
+        }
+    }
+
+    private void setMetrics(PersistenceMetrics metrics) {
+        metrics.gauge("buffer.size", "Items waiting in the write buffer", this,
+                service -> service.getWriteBufferCount(DynamoDBWriteBuffer::getBufferedCount));
+        metrics.gauge("buffer.inflight", "Items of batches which are being written", this,
+                service -> service.getWriteBufferCount(DynamoDBWriteBuffer::getInFlightCount));
+        metrics.counter("buffer.dropped", "Items dropped because the write buffer was full or writing failed", this,
+                service -> service.getWriteBufferCount(DynamoDBWriteBuffer::getDroppedCount));
+        PersistenceMetrics oldMetrics = this.metrics;
+        this.metrics = metrics;
+        oldMetrics.close();
+    }
+
+    private double getWriteBufferCount(ToLongFunction<DynamoDBWriteBuffer> count) {
+        DynamoDBWriteBuffer localWriteBuffer = writeBuffer;
+        return localWriteBuffer != null ? count.applyAsLong(localWriteBuffer) : 0;
+    }
+
+    PersistenceMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public String getId() {
-        return "dynamodb";
+        return SERVICE_ID;
     }
 
     @Override
@@ -345,6 +404,7 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
     public Iterable<HistoricItem> query(FilterCriteria filter) {
         logIfManyQueuedTasks();
         Instant start = Instant.now();
+        long startNanos = System.nanoTime();
         String filterDescription = filterToString(filter);
         logger.trace("Got a query with filter {}", filterDescription);
         DynamoDbEnhancedAsyncClient localClient = client;
@@ -355,6 +415,7 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         }
         if (!ensureClient() || localClient == null || localTableNameResolver == null) {
             logger.warn("DynamoDB not connected. Returning empty query results.");
+            metrics.queryFailed();
             return Collections.emptyList();
         }
 
@@ -365,16 +426,19 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
             Boolean resolved = resolveTableSchema().get();
             if (!resolved) {
                 logger.warn("Table schema not resolved, cannot query data.");
+                metrics.queryFailed();
                 return Collections.emptyList();
             }
         } catch (InterruptedException e) {
             logger.warn("Table schema resolution interrupted, cannot query data");
+            metrics.queryFailed();
             return Collections.emptyList();
         } catch (ExecutionException e) {
             Throwable cause = e.getCause();
             logger.warn("Table schema resolution errored, cannot query data: {} {}",
                     cause == null ? e.getClass().getSimpleName() : cause.getClass().getSimpleName(),
                     cause == null ? e.getMessage() : cause.getMessage());
+            metrics.queryFailed();
             return Collections.emptyList();
         }
         try {
@@ -435,15 +499,18 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
                 }).filter(value -> value != null).collect(Collectors.toList());
                 logger.debug("Query completed in {} ms. Filter was {}",
                         Duration.between(start, Instant.now()).toMillis(), filterDescription);
-                return results;
+                return metrics.recordQuery(startNanos, results);
             } catch (InterruptedException e) {
                 logger.warn("Query interrupted. Filter was {}", filterDescription);
+                metrics.queryFailed();
                 return Collections.emptyList();
             } catch (ExecutionException e) {
                 Throwable cause = e.getCause();
                 if (cause instanceof ResourceNotFoundException) {
                     logger.trace("Query failed since the DynamoDB table '{}' does not exist. Filter was {}", tableName,
                             filterDescription);
+                    // nothing has been stored yet
+                    return metrics.recordQuery(startNanos, Collections.emptyList());
                 } else if (logger.isTraceEnabled()) {
                     logger.trace("Query failed. Filter was {}", filterDescription, e);
                 } else {
@@ -451,11 +518,13 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
                             cause == null ? e.getClass().getSimpleName() : cause.getClass().getSimpleName(),
                             cause == null ? e.getMessage() : cause.getMessage(), filterDescription);
                 }
+                metrics.queryFailed();
                 return Collections.emptyList();
             }
         } catch (Exception e) {
             logger.error("Unexpected error with query having filter {}: {} {}. Returning empty query results.",
                     filterDescription, e.getClass().getSimpleName(), e.getMessage());
+            metrics.queryFailed();
             return Collections.emptyList();
         }
     }
@@ -499,6 +568,7 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         }
         if (!isReadyToStore()) {
             logger.warn("Not ready to store (config error?), not storing item {}.", item.getName());
+            metrics.storeFailed(1);
             return;
         }
         // Get Item describing the real type of data
@@ -550,27 +620,45 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
             }
             logger.trace("store() called with item {} {} '{}', which was converted to DTO {}",
                     copiedItem.getClass().getSimpleName(), effectiveName, copiedItem.getState(), dto);
-            dto.accept(new DynamoDBItemVisitor<TableCreatingPutItem<? extends DynamoDBItem<?>>>() {
-
-                @Override
-                public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(
-                        DynamoDBBigDecimalItem dynamoBigDecimalItem) {
-                    return new TableCreatingPutItem<DynamoDBBigDecimalItem>(DynamoDBPersistenceService.this,
-                            dynamoBigDecimalItem, getTable(DynamoDBBigDecimalItem.class));
-                }
-
-                @Override
-                public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(DynamoDBStringItem dynamoStringItem) {
-                    return new TableCreatingPutItem<DynamoDBStringItem>(DynamoDBPersistenceService.this,
-                            dynamoStringItem, getTable(DynamoDBStringItem.class));
-                }
-            }).putItemAsync();
+            DynamoDBWriteBuffer localWriteBuffer = writeBuffer;
+            if (localWriteBuffer != null) {
+                localWriteBuffer.offer(dto);
+            } else {
+                putItemAsync(dto);
+            }
         }, executor).exceptionally(e -> {
             logger.error("Unexcepted error", e);
             return null;
         });
     }
 
+    /**
+     * Writes a single item with PutItem, creating the table if it does not exist
+     */
+    CompletableFuture<Void> putItemAsync(DynamoDBItem<?> dto) {
+        long startNanos = System.nanoTime();
+        return dto.accept(new DynamoDBItemVisitor<TableCreatingPutItem<? extends DynamoDBItem<?>>>() {
+
+            @Override
+            public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(DynamoDBBigDecimalItem dynamoBigDecimalItem) {
+                return new TableCreatingPutItem<DynamoDBBigDecimalItem>(DynamoDBPersistenceService.this,
+                        dynamoBigDecimalItem, getTable(DynamoDBBigDecimalItem.class));
+            }
+
+            @Override
+            public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(DynamoDBStringItem dynamoStringItem) {
+                return new TableCreatingPutItem<DynamoDBStringItem>(DynamoDBPersistenceService.this, dynamoStringItem,
+                        getTable(DynamoDBStringItem.class));
+            }
+        }).putItemAsync().whenComplete((result, e) -> {
+            if (e == null) {
+                metrics.recordStore(startNanos, 1);
+            } else {
+                metrics.storeFailed(1);
+            }
+        });
+    }
+
     private Item getEffectiveItem(Item item) {
         final Item effectiveItem;
         if (item instanceof GroupItem) {
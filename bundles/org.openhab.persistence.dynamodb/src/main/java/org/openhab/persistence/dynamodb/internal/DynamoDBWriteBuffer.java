@@ -0,0 +1,355 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/**
+ * Write-behind buffer which stores items with BatchWriteItem requests of up to 25 items, either after the batch
+ * interval or as soon as a batch is full.
+ *
+ * Items which DynamoDB leaves unprocessed, e.g. when the provisioned write capacity is exceeded, are sent again with
+ * exponential backoff. If the table does not exist yet, the items of the batch are stored one by one with
+ * {@link TableCreatingPutItem}, which creates the table.
+ *
+ * Only a limited number of batches is written concurrently, the remaining items wait in the buffer. If the buffer is
+ * full, items are dropped.
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class DynamoDBWriteBuffer {
+    private final Logger logger = LoggerFactory.getLogger(DynamoDBWriteBuffer.class);
+
+    /**
+     * Maximum number of put requests in one BatchWriteItem request, a DynamoDB limit
+     */
+    public static final int MAX_BATCH_SIZE = 25;
+
+    private static final int MAX_CONCURRENT_BATCHES = 10;
+    private static final int MAX_RETRIES = 8;
+    private static final long RETRY_BASE_DELAY_MILLIS = 50;
+    private static final long RETRY_MAX_DELAY_MILLIS = 5000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+    private static final int DROPPED_LOG_INTERVAL = 1000;
+
+    private final DynamoDBPersistenceService service;
+    private final BlockingQueue<DynamoDBItem<?>> pending;
+    private final int batchSize;
+    private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+            new NamedThreadFactory("persistence-dynamodb-writer"));
+    private final ScheduledFuture<?> flushJob;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+    private final AtomicInteger inFlightItems = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param service the service providing the client and the tables
+     * @param batchSize maximum number of items in one request, at most {@link #MAX_BATCH_SIZE}
+     * @param batchInterval maximum time in milliseconds an item is kept in the buffer
+     * @param capacity maximum number of buffered items
+     */
+    public DynamoDBWriteBuffer(DynamoDBPersistenceService service, int batchSize, long batchInterval, int capacity) {
+        this.service = service;
+        this.batchSize = Math.min(batchSize, MAX_BATCH_SIZE);
+        this.pending = new LinkedBlockingQueue<>(Math.max(capacity, this.batchSize));
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, batchInterval, batchInterval, TimeUnit.MILLISECONDS);
+        logger.debug("DynamoDB write buffer: batchSize={} batchInterval={} capacity={}", this.batchSize, batchInterval,
+                capacity);
+    }
+
+    /**
+     * Adds an item to the buffer.
+     *
+     * @return false if the buffer is full and the item was dropped
+     */
+    public boolean offer(DynamoDBItem<?> dto) {
+        if (!pending.offer(dto)) {
+            long count = dropped.incrementAndGet();
+            if (count % DROPPED_LOG_INTERVAL == 1) {
+                logger.warn("DynamoDB write buffer is full, {} items dropped so far", count);
+            }
+            return false;
+        }
+        if (pending.size() >= batchSize) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    /**
+     * Stops the periodic flush and writes all buffered items, waiting for the outstanding requests. Must be called
+     * before the client is closed.
+     */
+    public void close() {
+        flushJob.cancel(false);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+        try {
+            while ((!pending.isEmpty() || inFlightItems.get() > 0) && System.nanoTime() < deadline) {
+                flush();
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler.shutdownNow();
+        int remaining = pending.size() + inFlightItems.get();
+        pending.clear();
+        if (remaining > 0) {
+            dropped.addAndGet(remaining);
+            logger.warn("DynamoDB write buffer closed, {} items could not be written", remaining);
+        }
+    }
+
+    /**
+     * @return number of items waiting to be sent
+     */
+    public int getBufferedCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return number of items sent to DynamoDB, or waiting to be sent again, which are not yet acknowledged
+     */
+    public int getInFlightCount() {
+        return inFlightItems.get();
+    }
+
+    /**
+     * @return number of BatchWriteItem requests sent
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * @return number of items sent again because DynamoDB left them unprocessed
+     */
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // closing, the remaining items are written by close()
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flush() {
+        flushRequested.set(false);
+        List<DynamoDBItem<?>> batch = new ArrayList<>(batchSize);
+        // completed batches request the next flush
+        while (inFlightBatches.get() < MAX_CONCURRENT_BATCHES && pending.drainTo(batch, batchSize) > 0) {
+            inFlightBatches.incrementAndGet();
+            inFlightItems.addAndGet(batch.size());
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                // must not escape, it would cancel the periodic flush
+                logger.warn("Failed to write {} items to DynamoDB: {} {}", batch.size(), e.getClass().getSimpleName(),
+                        e.getMessage());
+                completeItems(0, batch.size());
+                completeBatch();
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private void write(List<DynamoDBItem<?>> batch) {
+        // A request must not contain two items with the same key. Only the latest value is written, like consecutive
+        // PutItem requests would do.
+        Map<String, DynamoDBItem<?>> unique = new LinkedHashMap<>();
+        for (DynamoDBItem<?> dto : batch) {
+            unique.put(dto.getName() + '@' + dto.getTime().toInstant().toEpochMilli(), dto);
+        }
+        if (unique.size() < batch.size()) {
+            completeItems(batch.size() - unique.size(), 0);
+        }
+        List<DynamoDBItem<?>> dtos = new ArrayList<>(unique.values());
+
+        DynamoDBItemVisitor<Entry<String, WriteRequest>> toWriteRequest = new DynamoDBItemVisitor<>() {
+            @Override
+            public Entry<String, WriteRequest> visit(DynamoDBBigDecimalItem dynamoBigDecimalItem) {
+                return toWriteRequest(service.getTable(DynamoDBBigDecimalItem.class), dynamoBigDecimalItem);
+            }
+
+            @Override
+            public Entry<String, WriteRequest> visit(DynamoDBStringItem dynamoStringItem) {
+                return toWriteRequest(service.getTable(DynamoDBStringItem.class), dynamoStringItem);
+            }
+        };
+        Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+        for (DynamoDBItem<?> dto : dtos) {
+            Entry<String, WriteRequest> request = dto.accept(toWriteRequest);
+            requestItems.computeIfAbsent(request.getKey(), table -> new ArrayList<>()).add(request.getValue());
+        }
+        send(dtos, requestItems, 0);
+    }
+
+    private <T extends DynamoDBItem<?>> Entry<String, WriteRequest> toWriteRequest(DynamoDbAsyncTable<T> table,
+            T dto) {
+        return Map.entry(table.tableName(), WriteRequest.builder()
+                .putRequest(put -> put.item(table.tableSchema().itemToMap(dto, true))).build());
+    }
+
+    /**
+     * @param dtos the items of the request on the first attempt, null when unprocessed items are sent again
+     */
+    private void send(@Nullable List<DynamoDBItem<?>> dtos, Map<String, List<WriteRequest>> requestItems,
+            int attempt) {
+        int count = count(requestItems);
+        DynamoDbAsyncClient localLowLevelClient = service.getLowLevelClient();
+        if (localLowLevelClient == null) {
+            logger.warn("DynamoDB not connected, {} items could not be written", count);
+            service.getMetrics().storeFailed(count);
+            completeItems(0, count);
+            completeBatch();
+            return;
+        }
+        requests.incrementAndGet();
+        long startNanos = System.nanoTime();
+        localLowLevelClient
+                .batchWriteItem(req -> req.requestItems(requestItems).overrideConfiguration(service::overrideConfig))
+                .whenCompleteAsync((response, exception) -> handleResponse(dtos, count, attempt, startNanos, response,
+                        exception), service.getExecutor());
+    }
+
+    private void handleResponse(@Nullable List<DynamoDBItem<?>> dtos, int count, int attempt, long startNanos,
+            @Nullable BatchWriteItemResponse response, @Nullable Throwable exception) {
+        if (response != null) {
+            Map<String, List<WriteRequest>> unprocessed = response.unprocessedItems();
+            int unprocessedCount = count(unprocessed);
+            service.getMetrics().recordStore(startNanos, count - unprocessedCount);
+            completeItems(count - unprocessedCount, 0);
+            if (unprocessedCount == 0) {
+                completeBatch();
+            } else {
+                retry(unprocessed, unprocessedCount, attempt + 1);
+            }
+            return;
+        }
+        Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+                ? exception.getCause()
+                : exception;
+        if (cause instanceof ResourceNotFoundException && dtos != null) {
+            logger.trace("BatchWriteItem: table does not exist. Writing {} items one by one, creating the table",
+                    dtos.size());
+            putItems(dtos);
+        } else {
+            logger.warn("BatchWriteItem: failed (final) with {} {}. {} items could not be written.",
+                    cause == null ? null : cause.getClass().getSimpleName(),
+                    cause == null ? null : cause.getMessage(), count);
+            service.getMetrics().storeFailed(count);
+            completeItems(0, count);
+            completeBatch();
+        }
+    }
+
+    private void retry(Map<String, List<WriteRequest>> unprocessed, int count, int attempt) {
+        if (attempt > MAX_RETRIES) {
+            logger.warn("BatchWriteItem: {} items still unprocessed after {} retries, giving up. "
+                    + "Consider increasing the write capacity of the table.", count, MAX_RETRIES);
+            service.getMetrics().storeFailed(count);
+            completeItems(0, count);
+            completeBatch();
+            return;
+        }
+        // exponential backoff with full jitter
+        long delay = 1 + ThreadLocalRandom.current()
+                .nextLong(Math.min(RETRY_MAX_DELAY_MILLIS, RETRY_BASE_DELAY_MILLIS << attempt));
+        logger.trace("BatchWriteItem: {} items unprocessed, retrying in {} ms", count, delay);
+        retried.addAndGet(count);
+        try {
+            scheduler.schedule(() -> send(null, unprocessed, attempt), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // closed, the items are counted as dropped by close()
+            completeBatch();
+        }
+    }
+
+    private void putItems(List<DynamoDBItem<?>> dtos) {
+        CompletableFuture<?>[] puts = dtos.stream().map(dto -> service.putItemAsync(dto).handle((result, e) -> {
+            if (e == null) {
+                completeItems(1, 0);
+            } else {
+                completeItems(0, 1);
+            }
+            return null;
+        })).toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(puts).whenComplete((result, e) -> completeBatch());
+    }
+
+    private void completeItems(int writtenCount, int droppedCount) {
+        inFlightItems.addAndGet(-writtenCount - droppedCount);
+        written.addAndGet(writtenCount);
+        dropped.addAndGet(droppedCount);
+    }
+
+    private void completeBatch() {
+        inFlightBatches.decrementAndGet();
+        if (!pending.isEmpty()) {
+            requestFlush();
+        }
+    }
+
+    private static int count(Map<String, List<WriteRequest>> requestItems) {
+        return requestItems.values().stream().mapToInt(List::size).sum();
+    }
+}
@@ -191,10 +191,24 @@ public class BaseIntegrationTest extends JavaTest {
      * @param tablePrefix
      * @return new persistence service
      */
-    protected synchronized static DynamoDBPersistenceService newService(@Nullable Boolean legacy, boolean cleanLocal,
+    protected static DynamoDBPersistenceService newService(@Nullable Boolean legacy, boolean cleanLocal,
             @Nullable URI overrideLocalURI, @Nullable String table, @Nullable String tablePrefix) {
+        return newService(legacy, cleanLocal, overrideLocalURI, table, tablePrefix, Map.of());
+    }
+
+    /**
+     * Create new persistence service with additional configuration
+     *
+     * @param extraConfig configuration parameters added to the connection and table configuration
+     * @return new persistence service
+     * @see #newService(Boolean, boolean, URI, String, String)
+     */
+    protected synchronized static DynamoDBPersistenceService newService(@Nullable Boolean legacy, boolean cleanLocal,
+            @Nullable URI overrideLocalURI, @Nullable String table, @Nullable String tablePrefix,
+            Map<String, Object> extraConfig) {
         final DynamoDBPersistenceService service;
         Map<String, Object> config = getConfig(legacy, table, tablePrefix);
+        config.putAll(extraConfig);
         if (cleanLocal && overrideLocalURI != null) {
             throw new IllegalArgumentException("cannot specify both cleanLocal=true and overrideLocalURI");
         }
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.items.Item;
+import org.openhab.core.library.items.DimmerItem;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.StringItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.core.types.State;
+
+/**
+ * Stores items through the write buffer, i.e. with BatchWriteItem requests
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class BatchWriteIntegrationTest extends BaseIntegrationTest {
+
+    public static final boolean LEGACY_MODE = false;
+    private static final int NUMBER_COUNT = 60;
+    private static final int STRING_COUNT = 10;
+
+    private static @Nullable DynamoDBPersistenceService batchService;
+
+    @BeforeAll
+    public static void initBatchService() {
+        DynamoDBPersistenceService localService = service;
+        assert localService != null;
+        batchService = newService(LEGACY_MODE, false, localService.getEndpointOverride(), null, null,
+                Map.of("batchSize", "25", "batchInterval", "100"));
+    }
+
+    @AfterAll
+    public static void deactivateBatchService() {
+        DynamoDBPersistenceService localBatchService = batchService;
+        if (localBatchService != null) {
+            localBatchService.deactivate();
+        }
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testItemsAreWrittenInBatches() throws InterruptedException {
+        DynamoDBWriteBuffer buffer = batchService.getWriteBuffer();
+        assertNotNull(buffer);
+        NumberItem numberItem = (NumberItem) ITEMS.get("number");
+        StringItem stringItem = (StringItem) ITEMS.get("string");
+
+        // If the table does not exist yet, the first items are written one by one, creating it
+        ZonedDateTime storeStart = ZonedDateTime.now();
+        numberItem.setState(new DecimalType(-1));
+        batchService.store(numberItem);
+        stringItem.setState(new StringType("-1"));
+        batchService.store(stringItem);
+        waitForAssert(() -> {
+            assertEquals(2, buffer.getWrittenCount());
+            assertEquals(0, buffer.getInFlightCount());
+        });
+        long requestsBefore = buffer.getRequestCount();
+
+        for (int i = 0; i < NUMBER_COUNT; i++) {
+            // Add some delay to enforce different timestamps in ms accuracy
+            Thread.sleep(2);
+            numberItem.setState(new DecimalType(i));
+            batchService.store(numberItem);
+            if (i < STRING_COUNT) {
+                stringItem.setState(new StringType(String.valueOf(i)));
+                batchService.store(stringItem);
+            }
+        }
+        waitForAssert(() -> {
+            assertEquals(2 + NUMBER_COUNT + STRING_COUNT, buffer.getWrittenCount());
+            assertEquals(0, buffer.getBufferedCount());
+            assertEquals(0, buffer.getInFlightCount());
+        });
+        assertEquals(0, buffer.getDroppedCount());
+        assertTrue(buffer.getRequestCount() - requestsBefore < NUMBER_COUNT / 2,
+                "items should have been written in batches, requests: " + buffer.getRequestCount());
+
+        List<State> expectedNumbers = new ArrayList<>();
+        expectedNumbers.add(new DecimalType(-1));
+        for (int i = 0; i < NUMBER_COUNT; i++) {
+            expectedNumbers.add(new DecimalType(i));
+        }
+        List<State> expectedStrings = new ArrayList<>();
+        expectedStrings.add(new StringType("-1"));
+        for (int i = 0; i < STRING_COUNT; i++) {
+            expectedStrings.add(new StringType(String.valueOf(i)));
+        }
+        waitForAssert(() -> {
+            assertEquals(expectedNumbers, queryStates(numberItem, storeStart));
+            assertEquals(expectedStrings, queryStates(stringItem, storeStart));
+        });
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testCloseWritesBufferedItems() throws InterruptedException {
+        // never flushes on its own while the test runs
+        DynamoDBPersistenceService closingService = newService(LEGACY_MODE, false, service.getEndpointOverride(), null,
+                null, Map.of("batchSize", "25", "batchInterval", "600000"));
+        DynamoDBWriteBuffer buffer = closingService.getWriteBuffer();
+        assertNotNull(buffer);
+        DimmerItem item = (DimmerItem) ITEMS.get("dimmer");
+
+        ZonedDateTime storeStart = ZonedDateTime.now();
+        List<State> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(2);
+            item.setState(new PercentType(10 + i));
+            expected.add(new PercentType(10 + i));
+            closingService.store(item);
+        }
+        waitForAssert(() -> assertEquals(5, buffer.getBufferedCount()));
+        assertEquals(0, buffer.getWrittenCount());
+
+        closingService.deactivate();
+
+        assertEquals(5, buffer.getWrittenCount());
+        assertEquals(0, buffer.getDroppedCount());
+        waitForAssert(() -> assertEquals(expected, queryStates(item, storeStart)));
+    }
+
+    @SuppressWarnings("null")
+    private List<State> queryStates(Item item, ZonedDateTime storeStart) {
+        FilterCriteria criteria = new FilterCriteria();
+        criteria.setItemName(item.getName());
+        criteria.setBeginDate(storeStart);
+        criteria.setOrdering(Ordering.ASCENDING);
+        criteria.setPageSize(1000);
+        List<State> states = new ArrayList<>();
+        for (HistoricItem historicItem : service.query(criteria)) {
+            states.add(historicItem.getState());
+        }
+        return states;
+    }
+}
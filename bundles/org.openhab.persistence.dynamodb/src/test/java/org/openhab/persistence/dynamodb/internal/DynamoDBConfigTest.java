@@ -244,4 +244,38 @@ public class DynamoDBConfigTest {
         assertEquals(RetryMode.STANDARD, fromConfig.getRetryPolicy().retryMode());
         assertEquals(ExpectedTableSchema.MAYBE_LEGACY, fromConfig.getTableRevision());
     }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testRegionWithAccessKeysWithBatchSettings() throws Exception {
+        DynamoDBConfig fromConfig = DynamoDBConfig.fromConfig(mapFrom("region", "eu-west-1", "accessKey", "access1",
+                "secretKey", "secret1", "batchSize", "10", "batchInterval", "501", "bufferSize", "112"));
+        assertEquals(10, fromConfig.getBatchSize());
+        assertEquals(501, fromConfig.getBatchInterval());
+        assertEquals(112, fromConfig.getBufferSize());
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testRegionWithAccessKeysWithoutBatchSettings() throws Exception {
+        DynamoDBConfig fromConfig = DynamoDBConfig
+                .fromConfig(mapFrom("region", "eu-west-1", "accessKey", "access1", "secretKey", "secret1"));
+        assertEquals(DynamoDBConfig.DEFAULT_BATCH_SIZE, fromConfig.getBatchSize());
+        assertEquals(DynamoDBConfig.DEFAULT_BATCH_INTERVAL, fromConfig.getBatchInterval());
+        assertEquals(DynamoDBConfig.DEFAULT_BUFFER_SIZE, fromConfig.getBufferSize());
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testBatchSizeIsLimitedToDynamoDBMaximum() throws Exception {
+        DynamoDBConfig fromConfig = DynamoDBConfig.fromConfig(mapFrom("region", "eu-west-1", "accessKey", "access1",
+                "secretKey", "secret1", "batchSize", "100"));
+        assertEquals(DynamoDBWriteBuffer.MAX_BATCH_SIZE, fromConfig.getBatchSize());
+    }
+
+    @Test
+    public void testInvalidBatchInterval() throws Exception {
+        assertNull(DynamoDBConfig.fromConfig(mapFrom("region", "eu-west-1", "accessKey", "access1", "secretKey",
+                "secret1", "batchSize", "25", "batchInterval", "0")));
+    }
 }
@@ -15,18 +15,24 @@ package org.openhab.persistence.influxdb;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.config.core.ConfigurableService;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
 import org.openhab.core.items.Item;
+import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.MetadataRegistry;
+import org.openhab.core.library.types.StringType;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -34,6 +40,8 @@ import org.openhab.core.persistence.PersistenceService;
 import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
+import org.openhab.io.metrics.persistence.PersistenceMetrics;
+import org.openhab.io.metrics.persistence.PersistenceWriteBuffer;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBHistoricItem;
@@ -50,6 +58,8 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -88,12 +98,16 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
     private final ItemRegistry itemRegistry;
     private final MetadataRegistry metadataRegistry;
 
+    private @Nullable MeterRegistryProvider meterRegistryProvider;
+
     // Internal dependencies/state
     private InfluxDBConfiguration configuration = InfluxDBConfiguration.NO_CONFIGURATION;
+    private volatile PersistenceMetrics metrics = new PersistenceMetrics(SERVICE_NAME);
 
     // Relax rules because can only be null if component is not active
     private @NonNullByDefault({}) ItemToStorePointCreator itemToStorePointCreator;
     private @NonNullByDefault({}) InfluxDBRepository influxDBRepository;
+    private @NonNullByDefault({}) FilterCriteriaQueryCreator filterCriteriaQueryCreator;
 
     @Activate
     public InfluxDBPersistenceService(final @Reference ItemRegistry itemRegistry,
@@ -111,8 +125,10 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
 
         if (loadConfiguration(config)) {
             itemToStorePointCreator = new ItemToStorePointCreator(configuration, metadataRegistry);
+            filterCriteriaQueryCreator = RepositoryFactory.createQueryCreator(configuration, metadataRegistry);
             influxDBRepository = createInfluxDBRepository();
             influxDBRepository.connect();
+            updateWriteBufferMetrics();
         } else {
             logger.error("Cannot load configuration, persistence service wont work");
         }
@@ -120,6 +136,44 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         logger.debug("InfluxDB persistence service is now activated");
     }
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected void setMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        setMetrics(new PersistenceMetrics(meterRegistryProvider.getOHMeterRegistry(), SERVICE_NAME));
+    }
+
+    protected void unsetMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        if (this.meterRegistryProvider == meterRegistryProvider) {
+            this.meterRegistryProvider = null;
+            setMetrics(new PersistenceMetrics(SERVICE_NAME));
+        }
+    }
+
+    private void setMetrics(PersistenceMetrics metrics) {
+        metrics.gauge("buffer.size", "Points waiting in the write buffer", this,
+                service -> service.getWriteBufferCount(PersistenceWriteBuffer::getBufferedCount));
+        metrics.counter("buffer.dropped", "Points dropped because the write buffer was full", this,
+                service -> service.getWriteBufferCount(PersistenceWriteBuffer::getDroppedCount));
+        PersistenceMetrics oldMetrics = this.metrics;
+        this.metrics = metrics;
+        updateWriteBufferMetrics();
+        oldMetrics.close();
+    }
+
+    private void updateWriteBufferMetrics() {
+        InfluxDBRepository repository = influxDBRepository;
+        PersistenceWriteBuffer<?> writeBuffer = repository != null ? repository.getWriteBuffer() : null;
+        if (writeBuffer != null) {
+            writeBuffer.setMetrics(metrics);
+        }
+    }
+
+    private double getWriteBufferCount(ToLongFunction<PersistenceWriteBuffer<?>> count) {
+        InfluxDBRepository repository = influxDBRepository;
+        PersistenceWriteBuffer<?> writeBuffer = repository != null ? repository.getWriteBuffer() : null;
+        return writeBuffer != null ? count.applyAsLong(writeBuffer) : 0;
+    }
+
     // Visible for testing
     protected InfluxDBRepository createInfluxDBRepository() {
         return RepositoryFactory.createRepository(configuration);
@@ -138,6 +192,7 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         if (itemToStorePointCreator != null) {
             itemToStorePointCreator = null;
         }
+        filterCriteriaQueryCreator = null;
     }
 
     /**
@@ -212,6 +267,7 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
             }
         } else {
             logger.debug("store ignored, InfluxDB is not yet connected");
+            metrics.storeFailed(1);
         }
     }
 
@@ -225,23 +281,47 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
                     filter.getItemName(), filter.getOrdering().toString(), filter.getState(), filter.getOperator(),
                     filter.getBeginDate(), filter.getEndDate(), filter.getPageSize(), filter.getPageNumber());
 
-            String query = RepositoryFactory.createQueryCreator(configuration, metadataRegistry).createQuery(filter,
-                    configuration.getRetentionPolicy());
+            long start = System.nanoTime();
+            String query = filterCriteriaQueryCreator.createQuery(filter, configuration.getRetentionPolicy());
             logger.trace("Query {}", query);
-            List<InfluxRow> results = influxDBRepository.query(query);
-            return results.stream().map(this::mapRow2HistoricItem).collect(Collectors.toList());
+            List<InfluxRow> results;
+            try {
+                results = influxDBRepository.query(query);
+            } catch (RuntimeException e) {
+                metrics.queryFailed();
+                throw e;
+            }
+            // the clients return the complete result, only the conversion of the rows is deferred until the result is
+            // iterated, looking up each item only once
+            return metrics.recordQuery(start, () -> {
+                Map<String, Optional<Item>> items = new HashMap<>();
+                return results.stream().map(row -> mapRow2HistoricItem(row, items)).iterator();
+            });
         } else {
             logger.debug("query ignored, InfluxDB is not yet connected");
+            metrics.queryFailed();
             return Collections.emptyList();
         }
     }
 
-    private HistoricItem mapRow2HistoricItem(InfluxRow row) {
-        State state = InfluxDBStateConvertUtils.objectToState(row.getValue(), row.getItemName(), itemRegistry);
-        return new InfluxDBHistoricItem(row.getItemName(), state,
+    private HistoricItem mapRow2HistoricItem(InfluxRow row, Map<String, Optional<Item>> items) {
+        String itemName = row.getItemName();
+        Optional<Item> item = items.computeIfAbsent(itemName, this::findItem);
+        State state = item.isPresent() ? InfluxDBStateConvertUtils.objectToState(row.getValue(), item.get())
+                : new StringType(String.valueOf(row.getValue()));
+        return new InfluxDBHistoricItem(itemName, state,
                 ZonedDateTime.ofInstant(row.getTime(), ZoneId.systemDefault()));
     }
 
+    private Optional<Item> findItem(String itemName) {
+        try {
+            return Optional.of(itemRegistry.getItem(itemName));
+        } catch (ItemNotFoundException e) {
+            logger.info("Could not find item '{}' in registry", itemName);
+            return Optional.empty();
+        }
+    }
+
     @Override
     public List<PersistenceStrategy> getDefaultStrategies() {
         return List.of(PersistenceStrategy.Globals.RESTORE, PersistenceStrategy.Globals.CHANGE);
@@ -16,6 +16,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.metrics.persistence.PersistenceWriteBuffer;
 
 /**
  * Manages InfluxDB server interaction maintaining client connection
@@ -66,9 +68,17 @@ public interface InfluxDBRepository {
     List<InfluxRow> query(String query);
 
     /**
-     * Write point to database
+     * Write point to database. The point is buffered and written together with others in a batch.
      *
      * @param influxPoint Point to write
      */
     void write(InfluxPoint influxPoint);
+
+    /**
+     * Returns the buffer of points not yet written
+     *
+     * @return the buffer or null if not connected
+     */
+    @Nullable
+    PersistenceWriteBuffer<?> getWriteBuffer();
 }
@@ -21,8 +21,6 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
-import org.openhab.core.items.ItemNotFoundException;
-import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.library.items.ColorItem;
 import org.openhab.core.library.items.ContactItem;
 import org.openhab.core.library.items.DateTimeItem;
@@ -41,8 +39,6 @@ import org.openhab.core.library.types.PointType;
 import org.openhab.core.library.types.QuantityType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.types.State;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Conversion logic between openHAB {@link State} types and InfluxDB store types
@@ -53,7 +49,6 @@ import org.slf4j.LoggerFactory;
 public class InfluxDBStateConvertUtils {
     static final Number DIGITAL_VALUE_OFF = 0; // Visible for testing
     static final Number DIGITAL_VALUE_ON = 1; // Visible for testing
-    private static Logger logger = LoggerFactory.getLogger(InfluxDBStateConvertUtils.class);
 
     /**
      * Converts {@link State} to objects fitting into influxdb values.
@@ -89,52 +84,35 @@ public class InfluxDBStateConvertUtils {
      * needed for querying a {@link InfluxDBHistoricItem}.
      *
      * @param value to be converted to a {@link State}
-     * @param itemName name of the {@link Item} to get the {@link State} for
-     * @return the state of the item represented by the itemName parameter, else the string value of
-     *         the Object parameter
+     * @param itemToSetState the {@link Item} to get the {@link State} for
+     * @return the state of the item
      */
-    public static State objectToState(@Nullable Object value, String itemName, @Nullable ItemRegistry itemRegistry) {
-        State state = null;
-        if (itemRegistry != null) {
-            try {
-                Item item = itemRegistry.getItem(itemName);
-                state = objectToState(value, item);
-            } catch (ItemNotFoundException e) {
-                logger.info("Could not find item '{}' in registry", itemName);
-            }
-        }
-
-        if (state == null) {
-            state = new StringType(String.valueOf(value));
-        }
-
-        return state;
-    }
-
     public static State objectToState(@Nullable Object value, Item itemToSetState) {
-        String valueStr = String.valueOf(value);
-
         @Nullable
         Item item = itemToSetState;
         if (item instanceof GroupItem) {
             item = ((GroupItem) item).getBaseItem();
         }
+        // most common case first, numbers returned by the clients are converted without parsing them as string
+        if (item instanceof NumberItem) {
+            return new DecimalType(toBigDecimal(value));
+        }
+
+        String valueStr = String.valueOf(value);
         if (item instanceof ColorItem) {
             return new HSBType(valueStr);
         } else if (item instanceof LocationItem) {
             return new PointType(valueStr);
-        } else if (item instanceof NumberItem) {
-            return new DecimalType(valueStr);
         } else if (item instanceof DimmerItem) {
             return new PercentType(valueStr);
         } else if (item instanceof SwitchItem) {
-            return toBoolean(valueStr) ? OnOffType.ON : OnOffType.OFF;
+            return toBoolean(value) ? OnOffType.ON : OnOffType.OFF;
         } else if (item instanceof ContactItem) {
-            return toBoolean(valueStr) ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+            return toBoolean(value) ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
         } else if (item instanceof RollershutterItem) {
             return new PercentType(valueStr);
         } else if (item instanceof DateTimeItem) {
-            Instant i = Instant.ofEpochMilli(new BigDecimal(valueStr).longValue());
+            Instant i = Instant.ofEpochMilli(toBigDecimal(value).longValue());
             ZonedDateTime z = ZonedDateTime.ofInstant(i, TimeZone.getDefault().toZoneId());
             return new DateTimeType(z);
         } else {
@@ -142,14 +120,32 @@ public class InfluxDBStateConvertUtils {
         }
     }
 
+    private static BigDecimal toBigDecimal(@Nullable Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        } else {
+            return new BigDecimal(String.valueOf(value));
+        }
+    }
+
     private static boolean toBoolean(@Nullable Object object) {
         if (object instanceof Boolean) {
             return (Boolean) object;
+        } else if (object instanceof Double || object instanceof Float) {
+            return ((Number) object).doubleValue() == 1.0;
+        } else if (object instanceof Long || object instanceof Integer) {
+            return ((Number) object).longValue() == 1;
         } else if (object != null) {
-            if ("1".equals(object) || "1.0".equals(object)) {
+            String value = String.valueOf(object);
+            if ("1".equals(value) || "1.0".equals(value)) {
                 return true;
             } else {
-                return Boolean.valueOf(String.valueOf(object));
+                return Boolean.valueOf(value);
             }
         } else {
             return false;
@@ -23,17 +23,19 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
+import org.openhab.io.metrics.persistence.PersistenceWriteBuffer;
+import org.openhab.persistence.influxdb.InfluxDBPersistenceService;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
@@ -56,6 +58,8 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
     private InfluxDBConfiguration configuration;
     @Nullable
     private InfluxDB client;
+    @Nullable
+    private PersistenceWriteBuffer<Point> writeBuffer;
 
     public InfluxDB1RepositoryImpl(InfluxDBConfiguration configuration) {
         this.configuration = configuration;
@@ -72,13 +76,24 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                 configuration.getPassword());
         createdClient.setDatabase(configuration.getDatabaseName());
         createdClient.setRetentionPolicy(configuration.getRetentionPolicy());
-        createdClient.enableBatch(200, 100, TimeUnit.MILLISECONDS);
         this.client = createdClient;
+        this.writeBuffer = new PersistenceWriteBuffer<>(InfluxDBPersistenceService.SERVICE_NAME, this::writeBatch,
+                configuration.getBatchSize(), configuration.getFlushInterval(), configuration.getJitterInterval(),
+                configuration.getBufferSize());
         return checkConnectionStatus();
     }
 
     @Override
     public void disconnect() {
+        final PersistenceWriteBuffer<Point> currentWriteBuffer = this.writeBuffer;
+        if (currentWriteBuffer != null) {
+            currentWriteBuffer.close();
+        }
+        this.writeBuffer = null;
+        final InfluxDB currentClient = this.client;
+        if (currentClient != null) {
+            currentClient.close();
+        }
         this.client = null;
     }
 
@@ -116,15 +131,36 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
 
     @Override
     public void write(InfluxPoint point) {
-        final InfluxDB currentClient = this.client;
-        if (currentClient != null) {
-            Point clientPoint = convertPointToClientFormat(point);
-            currentClient.write(configuration.getDatabaseName(), configuration.getRetentionPolicy(), clientPoint);
+        final PersistenceWriteBuffer<Point> currentWriteBuffer = this.writeBuffer;
+        if (currentWriteBuffer != null) {
+            currentWriteBuffer.offer(convertPointToClientFormat(point));
         } else {
             logger.warn("Write point {} ignored due to client isn't connected", point);
         }
     }
 
+    private boolean writeBatch(List<Point> points) {
+        final InfluxDB currentClient = this.client;
+        if (currentClient == null) {
+            return false;
+        }
+        BatchPoints batchPoints = BatchPoints.database(configuration.getDatabaseName())
+                .retentionPolicy(configuration.getRetentionPolicy()).precision(TimeUnit.MILLISECONDS).points(points)
+                .build();
+        try {
+            currentClient.write(batchPoints);
+            return true;
+        } catch (RuntimeException e) {
+            logger.debug("writing {} points failed: {}", points.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public @Nullable PersistenceWriteBuffer<?> getWriteBuffer() {
+        return writeBuffer;
+    }
+
     private Point convertPointToClientFormat(InfluxPoint point) {
         Point.Builder clientPoint = Point.measurement(point.getMeasurementName()).time(point.getTime().toEpochMilli(),
                 TimeUnit.MILLISECONDS);
@@ -196,15 +232,15 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                             if (valueColumn == null || timestampColumn == null) {
                                 throw new IllegalStateException("missing column");
                             }
-                            for (int i = 0; i < valuess.size(); i++) {
-                                Double rawTime = (Double) Objects.requireNonNull(valuess.get(i).get(timestampColumn));
+                            for (List<@Nullable Object> values : valuess) {
+                                Double rawTime = (Double) Objects.requireNonNull(values.get(timestampColumn));
                                 Instant time = Instant.ofEpochMilli(rawTime.longValue());
                                 @Nullable
-                                Object value = valuess.get(i).get(valueColumn);
-                                var currentI = i;
-                                String itemName = Optional.ofNullable(itemNameColumn)
-                                        .flatMap(inc -> Optional.ofNullable((String) valuess.get(currentI).get(inc)))
-                                        .orElse(series.getName());
+                                Object value = values.get(valueColumn);
+                                String itemName = itemNameColumn != null ? (String) values.get(itemNameColumn) : null;
+                                if (itemName == null) {
+                                    itemName = series.getName();
+                                }
                                 logger.trace("adding historic item {}: time {} value {}", itemName, time, value);
                                 rows.add(new InfluxRow(time, itemName, value));
                             }
@@ -24,6 +24,8 @@ import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.metrics.persistence.PersistenceWriteBuffer;
+import org.openhab.persistence.influxdb.InfluxDBPersistenceService;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBConstants;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
@@ -37,7 +39,7 @@ import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.InfluxDBClientOptions;
 import com.influxdb.client.QueryApi;
-import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteApiBlocking;
 import com.influxdb.client.domain.Ready;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
@@ -57,7 +59,9 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     @Nullable
     private QueryApi queryAPI;
     @Nullable
-    private WriteApi writeAPI;
+    private WriteApiBlocking writeAPI;
+    @Nullable
+    private PersistenceWriteBuffer<Point> writeBuffer;
 
     public InfluxDB2RepositoryImpl(InfluxDBConfiguration configuration) {
         this.configuration = configuration;
@@ -94,7 +98,10 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         this.client = createdClient;
         logger.debug("Succesfully connected to InfluxDB. Instance ready={}", createdClient.ready());
         queryAPI = createdClient.getQueryApi();
-        writeAPI = createdClient.getWriteApi();
+        writeAPI = createdClient.getWriteApiBlocking();
+        writeBuffer = new PersistenceWriteBuffer<>(InfluxDBPersistenceService.SERVICE_NAME, this::writeBatch,
+                configuration.getBatchSize(), configuration.getFlushInterval(), configuration.getJitterInterval(),
+                configuration.getBufferSize());
         return checkConnectionStatus();
     }
 
@@ -103,6 +110,13 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
      */
     @Override
     public void disconnect() {
+        final PersistenceWriteBuffer<Point> currentWriteBuffer = this.writeBuffer;
+        if (currentWriteBuffer != null) {
+            currentWriteBuffer.close();
+        }
+        this.writeBuffer = null;
+        this.writeAPI = null;
+        this.queryAPI = null;
         final InfluxDBClient currentClient = this.client;
         if (currentClient != null) {
             currentClient.close();
@@ -140,14 +154,33 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
      */
     @Override
     public void write(InfluxPoint point) {
-        final WriteApi currentWriteAPI = writeAPI;
-        if (currentWriteAPI != null) {
-            currentWriteAPI.writePoint(convertPointToClientFormat(point));
+        final PersistenceWriteBuffer<Point> currentWriteBuffer = writeBuffer;
+        if (currentWriteBuffer != null) {
+            currentWriteBuffer.offer(convertPointToClientFormat(point));
         } else {
             logger.warn("Write point {} ignored due to writeAPI isn't present", point);
         }
     }
 
+    private boolean writeBatch(List<Point> points) {
+        final WriteApiBlocking currentWriteAPI = writeAPI;
+        if (currentWriteAPI == null) {
+            return false;
+        }
+        try {
+            currentWriteAPI.writePoints(points);
+            return true;
+        } catch (RuntimeException e) {
+            logger.debug("writing {} points failed: {}", points.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public @Nullable PersistenceWriteBuffer<?> getWriteBuffer() {
+        return writeBuffer;
+    }
+
     private Point convertPointToClientFormat(InfluxPoint point) {
         Point clientPoint = Point.measurement(point.getMeasurementName()).time(point.getTime(), WritePrecision.MS);
         setPointValue(point.getValue(), clientPoint);
@@ -12,10 +12,16 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import org.eclipse.jdt.annotation.DefaultLocation;
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -25,8 +31,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.MetadataRegistry;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.core.types.State;
 import org.openhab.persistence.influxdb.InfluxDBPersistenceService;
 
 /**
@@ -38,13 +50,14 @@ public class InfluxDBPersistenceServiceTest {
     private InfluxDBPersistenceService instance;
 
     private @Mock InfluxDBRepository influxDBRepository;
+    private @Mock ItemRegistry itemRegistry;
 
     private Map<String, Object> validConfig;
     private Map<String, Object> invalidConfig;
 
     @BeforeEach
     public void before() {
-        instance = new InfluxDBPersistenceService(mock(ItemRegistry.class), mock(MetadataRegistry.class)) {
+        instance = new InfluxDBPersistenceService(itemRegistry, mock(MetadataRegistry.class)) {
             @Override
             protected InfluxDBRepository createInfluxDBRepository() {
                 return influxDBRepository;
@@ -61,6 +74,7 @@ public class InfluxDBPersistenceServiceTest {
         invalidConfig = null;
         instance = null;
         influxDBRepository = null;
+        itemRegistry = null;
     }
 
     @Test
@@ -103,4 +117,21 @@ public class InfluxDBPersistenceServiceTest {
         instance.store(ItemTestHelper.createNumberItem("number", 5));
         verify(influxDBRepository, never()).write(any());
     }
+
+    @Test
+    public void queryLooksUpEachItemOnce() throws ItemNotFoundException {
+        instance.activate(validConfig);
+        when(influxDBRepository.isConnected()).thenReturn(true);
+        when(influxDBRepository.query(any())).thenReturn(List.of(new InfluxRow(Instant.now(), "number", 1.5d),
+                new InfluxRow(Instant.now(), "number", 2L), new InfluxRow(Instant.now(), "number", 3.25d)));
+        when(itemRegistry.getItem("number")).thenReturn(new NumberItem("number"));
+
+        FilterCriteria filter = new FilterCriteria();
+        filter.setItemName("number");
+        List<State> states = StreamSupport.stream(instance.query(filter).spliterator(), false)
+                .map(HistoricItem::getState).collect(Collectors.toList());
+
+        assertThat(states, contains(new DecimalType("1.5"), new DecimalType(2), new DecimalType("3.25")));
+        verify(itemRegistry, times(1)).getItem("number");
+    }
 }
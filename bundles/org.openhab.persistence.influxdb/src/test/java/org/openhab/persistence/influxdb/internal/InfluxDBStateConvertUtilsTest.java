@@ -74,6 +74,14 @@ public class InfluxDBStateConvertUtilsTest {
         assertThat(InfluxDBStateConvertUtils.objectToState(val, item), equalTo(new DecimalType(val)));
     }
 
+    @Test
+    public void convertClientNumbersToState() {
+        NumberItem item = new NumberItem("name");
+        assertThat(InfluxDBStateConvertUtils.objectToState(21.5d, item), equalTo(new DecimalType("21.5")));
+        assertThat(InfluxDBStateConvertUtils.objectToState(42L, item), equalTo(new DecimalType(42)));
+        assertThat(InfluxDBStateConvertUtils.objectToState("3.25", item), equalTo(new DecimalType("3.25")));
+    }
+
     @Test
     public void convertOnOffToState() {
         boolean val1 = true;
@@ -13,12 +13,20 @@
 package org.openhab.persistence.jdbc.db;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -26,6 +34,7 @@ import java.util.stream.Collectors;
 
 import javax.measure.Quantity;
 import javax.measure.Unit;
+import javax.sql.DataSource;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.knowm.yank.Yank;
@@ -52,6 +61,7 @@ import org.openhab.core.types.State;
 import org.openhab.core.types.TypeParser;
 import org.openhab.persistence.jdbc.dto.ItemVO;
 import org.openhab.persistence.jdbc.dto.ItemsVO;
+import org.openhab.persistence.jdbc.dto.JdbcAggregation;
 import org.openhab.persistence.jdbc.dto.JdbcHistoricItem;
 import org.openhab.persistence.jdbc.utils.DbMetaData;
 import org.openhab.persistence.jdbc.utils.StringUtilsExt;
@@ -83,6 +93,10 @@ public class JdbcBaseDAO {
     protected String sqlGetItemTables;
     protected String sqlCreateItemTable;
     protected String sqlInsertItemValue;
+    // replaces #tablePrimaryValue# in sqlInsertItemValue when the time is bound as parameter
+    protected String sqlTimeParameter = "?";
+    // number of the time bucket of a row in aggregated queries, the bucket width replaces #bucketSeconds#
+    protected String sqlTimeBucket = "FLOOR(UNIX_TIMESTAMP(time) / #bucketSeconds#)";
 
     /********
      * INIT *
@@ -325,19 +339,55 @@ public class JdbcBaseDAO {
 
     public void doStoreItemValue(Item item, ItemVO vo) {
         ItemVO storedVO = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" },
-                new String[] { storedVO.getTableName(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { storedVO.getValue(), storedVO.getValue() };
+        String sql = insertItemValueProvider(storedVO, sqlTypes.get("tablePrimaryValue"));
+        Object[] params = insertItemValueParams(storedVO);
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
+    /**
+     * Converts the current state of an item for a later {@link #doStoreItemValues(Connection, List)}. In contrast to
+     * {@link #doStoreItemValue(Item, ItemVO)} the time of the row is not set by the database on insert, but passed in
+     * here.
+     */
+    public ItemVO doPrepareItemValue(Item item, ItemVO vo, Date time) {
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        storedVO.setTime(time);
+        return storedVO;
+    }
+
+    /**
+     * Inserts values prepared by {@link #doPrepareItemValue(Item, ItemVO, Date)} as JDBC batch. Committing is left to
+     * the caller.
+     */
+    public void doStoreItemValues(Connection connection, List<ItemVO> vol) throws SQLException {
+        // the statement depends on table and data type, group the values by it
+        Map<String, List<ItemVO>> statements = new LinkedHashMap<>();
+        for (ItemVO vo : vol) {
+            statements.computeIfAbsent(insertItemValueProvider(vo, sqlTimeParameter), sql -> new ArrayList<>()).add(vo);
+        }
+        for (Map.Entry<String, List<ItemVO>> entry : statements.entrySet()) {
+            logger.debug("JDBC::doStoreItemValues sql={} count={}", entry.getKey(), entry.getValue().size());
+            try (PreparedStatement statement = connection.prepareStatement(entry.getKey())) {
+                for (ItemVO vo : entry.getValue()) {
+                    statement.setObject(1, storeTimeValue(vo.getTime()));
+                    Object[] params = insertItemValueParams(vo);
+                    for (int i = 0; i < params.length; i++) {
+                        statement.setObject(i + 2, params[i]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+    }
+
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name, ZoneId timeZone) {
         String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
-        logger.debug("JDBC::doGetHistItemFilterQuery sql={}", sql);
-        List<Object[]> m = Yank.queryObjectArrays(sql, null);
+        Object[] params = histItemFilterQueryParams(filter, timeZone);
+        logger.debug("JDBC::doGetHistItemFilterQuery sql={} params={}", sql, params);
+        List<Object[]> m = Yank.queryObjectArrays(sql, params);
         // we already retrieve the unit here once as it is a very costly operation
         String itemName = item.getName();
         Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
@@ -345,6 +395,65 @@ public class JdbcBaseDAO {
                 .collect(Collectors.<HistoricItem> toList());
     }
 
+    /**
+     * Like {@link #doGetHistItemFilterQuery(Item, FilterCriteria, int, String, String, ZoneId)}, but the driver reads
+     * the result <code>fetchSize</code> rows at a time and each row is converted while it is read, so that the raw
+     * rows are not held in memory in addition to the converted ones. The converted result is still materialized, so
+     * that the connection is released before the result is returned.
+     */
+    public List<HistoricItem> doGetHistItemFilterQueryFetched(Item item, FilterCriteria filter, int numberDecimalcount,
+            String table, String name, ZoneId timeZone, int fetchSize) {
+        String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
+        Object[] params = histItemFilterQueryParams(filter, timeZone);
+        logger.debug("JDBC::doGetHistItemFilterQueryFetched sql={} params={}", sql, params);
+        DataSource dataSource = Yank.getDefaultConnectionPool();
+        if (dataSource == null) {
+            logger.warn("JDBC::doGetHistItemFilterQueryFetched: no connection to database, query aborted");
+            return List.of();
+        }
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
+        List<HistoricItem> result = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY)) {
+                prepareStreamingQuery(connection, statement, fetchSize);
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        result.add(new JdbcHistoricItem(itemName, getState(item, unit, resultSet.getObject(2)),
+                                objectAsDate(resultSet.getObject(1))));
+                    }
+                }
+            } finally {
+                // the connection goes back to the pool, so a changed auto-commit mode must not leak to its next user
+                if (connection.getAutoCommit() != autoCommit) {
+                    connection.setAutoCommit(autoCommit);
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("JDBC::doGetHistItemFilterQueryFetched: query failed: {}", e.getMessage());
+            return List.of();
+        }
+        return result;
+    }
+
+    public List<HistoricItem> doGetHistItemAggregateQuery(Item item, FilterCriteria filter, String table,
+            JdbcAggregation aggregation, long bucketSeconds, ZoneId timeZone) {
+        String sql = histItemAggregateQueryProvider(filter, table, aggregation, bucketSeconds);
+        Object[] params = new Object[] { filterTimeValue(filter.getBeginDate().withZoneSameInstant(timeZone)),
+                filterTimeValue(filter.getEndDate().withZoneSameInstant(timeZone)) };
+        logger.debug("JDBC::doGetHistItemAggregateQuery sql={} params={}", sql, params);
+        List<Object[]> m = Yank.queryObjectArrays(sql, params);
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
+        return m.stream().map(o -> new JdbcHistoricItem(itemName, getAggregatedState(item, unit, o[1]),
+                objectAsDate(o[0]))).collect(Collectors.<HistoricItem> toList());
+    }
+
     /*************
      * Providers *
      *************/
@@ -359,17 +468,15 @@ public class JdbcBaseDAO {
         String filterString = "";
         if (filter.getBeginDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME>?";
         }
         if (filter.getEndDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME<?";
         }
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC ";
         if (filter.getPageSize() != 0x7fffffff) {
-            filterString += " LIMIT " + filter.getPageNumber() * filter.getPageSize() + "," + filter.getPageSize();
+            filterString += " LIMIT ?,?";
         }
         // SELECT time, ROUND(value,3) FROM number_item_0114 ORDER BY time DESC LIMIT 0,1
         // rounding HALF UP
@@ -383,6 +490,65 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    /**
+     * Provides the parameters of the statement created by
+     * {@link #histItemFilterQueryProvider(FilterCriteria, int, String, String, ZoneId)}: begin and end date if set,
+     * followed by offset and row count if the result is paged.
+     */
+    protected Object[] histItemFilterQueryParams(FilterCriteria filter, ZoneId timeZone) {
+        List<Object> params = new ArrayList<>(4);
+        if (filter.getBeginDate() != null) {
+            params.add(filterTimeValue(filter.getBeginDate().withZoneSameInstant(timeZone)));
+        }
+        if (filter.getEndDate() != null) {
+            params.add(filterTimeValue(filter.getEndDate().withZoneSameInstant(timeZone)));
+        }
+        if (filter.getPageSize() != 0x7fffffff) {
+            params.add(filter.getPageNumber() * filter.getPageSize());
+            params.add(filter.getPageSize());
+        }
+        return params.toArray();
+    }
+
+    /**
+     * Converts a filter date to the parameter compared with the time column, in seconds precision like
+     * {@link #JDBC_DATE_FORMAT}.
+     */
+    protected Object filterTimeValue(ZonedDateTime time) {
+        return Timestamp.valueOf(time.toLocalDateTime().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Configures a history query so that the driver does not read the whole result at once. A changed auto-commit
+     * mode of the connection is restored after the query.
+     */
+    protected void prepareStreamingQuery(Connection connection, PreparedStatement statement, int fetchSize)
+            throws SQLException {
+        statement.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Provides a query returning one row per time bucket between begin and end date of the filter, which are bound
+     * as parameters. The bucket width is part of the statement, as not all databases accept parameters in GROUP BY.
+     */
+    protected String histItemAggregateQueryProvider(FilterCriteria filter, String table, JdbcAggregation aggregation,
+            long bucketSeconds) {
+        String bucket = StringUtilsExt.replaceArrayMerge(sqlTimeBucket, new String[] { "#bucketSeconds#" },
+                new String[] { String.valueOf(bucketSeconds) });
+        String filterString = " WHERE TIME>? AND TIME<? GROUP BY " + bucket;
+        String order = (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC";
+        String queryString;
+        if (aggregation == JdbcAggregation.LAST) {
+            queryString = "SELECT time, value FROM " + table + " WHERE time IN (SELECT MAX(time) FROM " + table
+                    + filterString + ")" + order;
+        } else {
+            queryString = "SELECT MIN(time) AS time, " + aggregation.name() + "(value) FROM " + table + filterString
+                    + order;
+        }
+        logger.debug("JDBC::query aggregate queryString = {}", queryString);
+        return queryString;
+    }
+
     private String updateItemTableNamesProvider(List<ItemVO> namesList) {
         logger.debug("JDBC::updateItemTableNamesProvider namesList.size = {}", namesList.size());
         String queryString = "";
@@ -394,6 +560,22 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    protected String insertItemValueProvider(ItemVO vo, String timeValue) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                new String[] { "#tableName#", "#tablePrimaryValue#" }, new String[] { vo.getTableName(), timeValue });
+    }
+
+    protected Object[] insertItemValueParams(ItemVO vo) {
+        return new Object[] { vo.getValue(), vo.getValue() };
+    }
+
+    /**
+     * Converts the time of a prepared value to the parameter bound to {@link #sqlTimeParameter}.
+     */
+    protected Object storeTimeValue(Date time) {
+        return new Timestamp(time.getTime());
+    }
+
     protected ItemVO storeItemValueProvider(Item item, ItemVO vo) {
         String itemType = getItemType(item);
 
@@ -517,6 +699,18 @@ public class JdbcBaseDAO {
         }
     }
 
+    /**
+     * Converts an aggregated value. Averages of integer columns are returned as decimals, so numbers are not
+     * converted according to the column type like in {@link #getState(Item, Unit, Object)}.
+     */
+    protected State getAggregatedState(Item item, @Nullable Unit<? extends Quantity<?>> unit, Object v) {
+        if (item instanceof NumberItem && v instanceof Number) {
+            double value = ((Number) v).doubleValue();
+            return unit == null ? new DecimalType(value) : QuantityType.valueOf(value, unit);
+        }
+        return getState(item, unit, v);
+    }
+
     protected ZonedDateTime objectAsDate(Object v) {
         if (v instanceof java.lang.String) {
             return ZonedDateTime.ofInstant(Timestamp.valueOf(v.toString()).toInstant(), ZoneId.systemDefault());
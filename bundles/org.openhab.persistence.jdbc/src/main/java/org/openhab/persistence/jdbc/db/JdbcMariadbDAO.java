@@ -12,6 +12,10 @@
  */
 package org.openhab.persistence.jdbc.db;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.knowm.yank.Yank;
 import org.openhab.persistence.jdbc.utils.DbMetaData;
@@ -60,6 +64,7 @@ public class JdbcMariadbDAO extends JdbcBaseDAO {
         databaseProps.setProperty("dataSource.cachePrepStmts", "true");
         databaseProps.setProperty("dataSource.prepStmtCacheSize", "250");
         databaseProps.setProperty("dataSource.prepStmtCacheSqlLimit", "2048");
+        databaseProps.setProperty("dataSource.useServerPrepStmts", "true");
         databaseProps.setProperty("dataSource.jdbcCompliantTruncation", "false");// jdbc standard max varchar max length
         // of 21845
 
@@ -103,6 +108,12 @@ public class JdbcMariadbDAO extends JdbcBaseDAO {
     /*****************
      * H E L P E R S *
      *****************/
+    @Override
+    protected void prepareStreamingQuery(Connection connection, PreparedStatement statement, int fetchSize)
+            throws SQLException {
+        // the driver only streams the result row by row, instead of reading fetchSize rows at a time
+        statement.setFetchSize(Integer.MIN_VALUE);
+    }
 
     /******************************
      * public Getters and Setters *
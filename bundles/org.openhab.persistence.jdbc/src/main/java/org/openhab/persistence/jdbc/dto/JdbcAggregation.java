@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.dto;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Functions to combine the values of a time bucket in aggregated queries. The names of {@link #AVG}, {@link #MIN}
+ * and {@link #MAX} are the SQL aggregate functions.
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public enum JdbcAggregation {
+    AVG,
+    MIN,
+    MAX,
+    /** the last stored value of the bucket */
+    LAST
+}
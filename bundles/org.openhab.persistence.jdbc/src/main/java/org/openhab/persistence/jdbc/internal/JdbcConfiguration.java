@@ -58,6 +58,14 @@ public class JdbcConfiguration {
     private int tableIdDigitCount = 4;
     private boolean rebuildTableNames = false;
 
+    // write-behind buffer, disabled if batchSize is 0
+    private int batchSize = 0;
+    private int batchInterval = 1000;
+    private int bufferSize = 10000;
+
+    // rows fetched at once by unpaged queries, which are read while iterated; 0 reads the whole result at once
+    private int fetchSize = 0;
+
     private int errReconnectThreshold = 0;
 
     public int timerCount = 0;
@@ -173,6 +181,30 @@ public class JdbcConfiguration {
             logger.debug("JDBC::updateConfig: rebuildTableNames={}", rebuildTableNames);
         }
 
+        String bs = (String) configuration.get("batchSize");
+        if (bs != null && !bs.isBlank() && isNumericPattern.matcher(bs).matches()) {
+            batchSize = Integer.parseInt(bs);
+            logger.debug("JDBC::updateConfig: batchSize={}", batchSize);
+        }
+
+        String bi = (String) configuration.get("batchInterval");
+        if (bi != null && !bi.isBlank() && isNumericPattern.matcher(bi).matches()) {
+            batchInterval = Math.max(1, Integer.parseInt(bi));
+            logger.debug("JDBC::updateConfig: batchInterval={}", batchInterval);
+        }
+
+        String bf = (String) configuration.get("bufferSize");
+        if (bf != null && !bf.isBlank() && isNumericPattern.matcher(bf).matches()) {
+            bufferSize = Integer.parseInt(bf);
+            logger.debug("JDBC::updateConfig: bufferSize={}", bufferSize);
+        }
+
+        String fs = (String) configuration.get("fetchSize");
+        if (fs != null && !fs.isBlank() && isNumericPattern.matcher(fs).matches()) {
+            fetchSize = Integer.parseInt(fs);
+            logger.debug("JDBC::updateConfig: fetchSize={}", fetchSize);
+        }
+
         // undocumented
         String ac = (String) configuration.get("maximumPoolSize");
         if (ac != null && !ac.isBlank()) {
@@ -358,6 +390,22 @@ public class JdbcConfiguration {
         return tableIdDigitCount;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getBatchInterval() {
+        return batchInterval;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
     public JdbcBaseDAO getDBDAO() {
         return dBDAO;
     }
@@ -12,21 +12,30 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.sql.DataSource;
+
 import org.knowm.yank.Yank;
 import org.openhab.core.i18n.TimeZoneProvider;
 import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
+import org.openhab.io.metrics.persistence.PersistenceMetrics;
+import org.openhab.io.metrics.persistence.PersistenceWriteBuffer;
 import org.openhab.persistence.jdbc.dto.ItemVO;
 import org.openhab.persistence.jdbc.dto.ItemsVO;
+import org.openhab.persistence.jdbc.dto.JdbcAggregation;
 import org.openhab.persistence.jdbc.dto.JdbcPersistenceItemInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +55,8 @@ public class JdbcMapper {
     protected boolean initialized = false;
     protected JdbcConfiguration conf = null;
     protected final Map<String, String> sqlTables = new HashMap<>();
+    protected volatile PersistenceWriteBuffer<ItemVO> writeBuffer = null;
+    protected volatile PersistenceMetrics metrics = new PersistenceMetrics("jdbc");
     private long afterAccessMin = 10000;
     private long afterAccessMax = 0;
     private static final String ITEM_NAME_PATTERN = "[^a-zA-Z_0-9\\-]";
@@ -153,12 +164,82 @@ public class JdbcMapper {
             return item;
         }
         long timerStart = System.currentTimeMillis();
-        conf.getDBDAO().doStoreItemValue(item, new ItemVO(tableName, null));
+        PersistenceWriteBuffer<ItemVO> buffer = writeBuffer;
+        if (buffer != null) {
+            // convert the state now, it may have changed when the buffer is flushed
+            ItemVO vo = conf.getDBDAO().doPrepareItemValue(item, new ItemVO(tableName, null), new Date());
+            if (!buffer.offer(vo)) {
+                logger.debug("JDBC::storeItemValue: write buffer is full, dropped the oldest buffered state");
+            }
+            return item;
+        }
+        long start = System.nanoTime();
+        try {
+            conf.getDBDAO().doStoreItemValue(item, new ItemVO(tableName, null));
+        } catch (RuntimeException e) {
+            metrics.storeFailed(1);
+            throw e;
+        }
+        metrics.recordStore(start, 1);
         logTime("storeItemValue", timerStart, System.currentTimeMillis());
         errCnt = 0;
         return item;
     }
 
+    /**
+     * Stores buffered values in one transaction. Only the last value per table and time is kept. If the transaction
+     * fails, the values are stored one by one, so that a single bad value does not discard the whole batch.
+     */
+    protected void storeItemValues(List<ItemVO> vol) {
+        logger.debug("JDBC::storeItemValues: count={}", vol.size());
+        long timerStart = System.currentTimeMillis();
+        Map<String, Map<Long, ItemVO>> tables = new LinkedHashMap<>();
+        for (ItemVO vo : vol) {
+            tables.computeIfAbsent(vo.getTableName(), t -> new LinkedHashMap<>()).put(vo.getTime().getTime(), vo);
+        }
+        List<ItemVO> values = tables.values().stream().flatMap(m -> m.values().stream()).collect(Collectors.toList());
+        DataSource dataSource = Yank.getDefaultConnectionPool();
+        if (dataSource == null) {
+            logger.warn("JDBC::storeItemValues: no connection to database, dropped {} values", values.size());
+            metrics.storeFailed(values.size());
+            return;
+        }
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                conf.getDBDAO().doStoreItemValues(connection, values);
+                connection.commit();
+                metrics.recordStore(start, values.size());
+                errCnt = 0;
+            } catch (SQLException e) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+                logger.warn("JDBC::storeItemValues: batch of {} values failed, storing them separately: {}",
+                        values.size(), e.getMessage());
+                storeItemValuesSeparately(connection, values);
+            }
+        } catch (SQLException e) {
+            logger.error("JDBC::storeItemValues: unable to store {} values: {}", values.size(), e.getMessage());
+            metrics.storeFailed(values.size());
+        }
+        logTime("storeItemValues", timerStart, System.currentTimeMillis());
+    }
+
+    private void storeItemValuesSeparately(Connection connection, List<ItemVO> values) {
+        for (ItemVO vo : values) {
+            long start = System.nanoTime();
+            try {
+                conf.getDBDAO().doStoreItemValues(connection, List.of(vo));
+                metrics.recordStore(start, 1);
+            } catch (SQLException e) {
+                metrics.storeFailed(1);
+                logger.error("JDBC::storeItemValues: unable to store value '{}' in table '{}': {}", vo.getValue(),
+                        vo.getTableName(), e.getMessage());
+            }
+        }
+    }
+
     public List<HistoricItem> getHistItemFilterQuery(FilterCriteria filter, int numberDecimalcount, String table,
             Item item) {
         logger.debug(
@@ -177,6 +258,30 @@ public class JdbcMapper {
         return null;
     }
 
+    public List<HistoricItem> getHistItemFilterQueryFetched(FilterCriteria filter, int numberDecimalcount,
+            String table, Item item, int fetchSize) {
+        logger.debug("JDBC::getHistItemFilterQueryFetched table='{}' item='{}' fetchSize={}", table, item.getName(),
+                fetchSize);
+        long timerStart = System.currentTimeMillis();
+        List<HistoricItem> result = conf.getDBDAO().doGetHistItemFilterQueryFetched(item, filter, numberDecimalcount,
+                table, item.getName(), timeZoneProvider.getTimeZone(), fetchSize);
+        logTime("getHistItemFilterQueryFetched", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+        return result;
+    }
+
+    public List<HistoricItem> getHistItemAggregateQuery(FilterCriteria filter, String table, Item item,
+            JdbcAggregation aggregation, long bucketSeconds) {
+        logger.debug("JDBC::getHistItemAggregateQuery table='{}' item='{}' aggregation={} bucketSeconds={}", table,
+                item.getName(), aggregation, bucketSeconds);
+        long timerStart = System.currentTimeMillis();
+        List<HistoricItem> result = conf.getDBDAO().doGetHistItemAggregateQuery(item, filter, table, aggregation,
+                bucketSeconds, timeZoneProvider.getTimeZone());
+        logTime("getHistItemAggregateQuery", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+        return result;
+    }
+
     /***********************
      * DATABASE CONNECTION *
      ***********************/
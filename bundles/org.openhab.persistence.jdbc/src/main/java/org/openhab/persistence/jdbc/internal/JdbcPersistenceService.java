@@ -12,6 +12,8 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -21,10 +23,12 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.i18n.TimeZoneProvider;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
 import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -32,15 +36,23 @@ import org.openhab.core.persistence.PersistenceService;
 import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.UnDefType;
+import org.openhab.io.metrics.persistence.PersistenceMetrics;
+import org.openhab.io.metrics.persistence.PersistenceWriteBuffer;
+import org.openhab.persistence.jdbc.dto.ItemVO;
+import org.openhab.persistence.jdbc.dto.JdbcAggregation;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.Tags;
+
 /**
  * This is the implementation of the JDBC {@link PersistenceService}.
  *
@@ -59,6 +71,7 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
     private final Logger logger = LoggerFactory.getLogger(JdbcPersistenceService.class);
 
     private final ItemRegistry itemRegistry;
+    private @Nullable MeterRegistryProvider meterRegistryProvider;
 
     @Activate
     public JdbcPersistenceService(final @Reference ItemRegistry itemRegistry,
@@ -103,10 +116,55 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
     @Deactivate
     public void deactivate(final int reason) {
         logger.debug("JDBC::deactivate:  persistence bundle stopping. Disconnecting from database. reason={}", reason);
+        stopWriteBuffer();
         // closeConnection();
         initialized = false;
     }
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected void setMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        setMetrics(createMetrics(meterRegistryProvider));
+    }
+
+    protected void unsetMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        if (this.meterRegistryProvider == meterRegistryProvider) {
+            this.meterRegistryProvider = null;
+            setMetrics(new PersistenceMetrics(getId()));
+        }
+    }
+
+    /**
+     * The meters are tagged with the database type, so that the query latencies of different databases can be told
+     * apart
+     */
+    private PersistenceMetrics createMetrics(MeterRegistryProvider meterRegistryProvider) {
+        JdbcConfiguration currentConf = conf;
+        String dialect = currentConf != null ? currentConf.getServiceName() : "none";
+        return new PersistenceMetrics(meterRegistryProvider.getOHMeterRegistry(), getId(),
+                Tags.of("dialect", dialect));
+    }
+
+    private void setMetrics(PersistenceMetrics metrics) {
+        metrics.gauge("buffer.size", "Item states waiting in the write buffer", this,
+                service -> service.getBufferedCount());
+        metrics.counter("buffer.dropped", "Item states dropped because the write buffer was full", this,
+                service -> service.getDroppedCount());
+        PersistenceMetrics oldMetrics = this.metrics;
+        this.metrics = metrics;
+        oldMetrics.close();
+    }
+
+    private int getBufferedCount() {
+        PersistenceWriteBuffer<ItemVO> buffer = writeBuffer;
+        return buffer != null ? buffer.getBufferedCount() : 0;
+    }
+
+    private long getDroppedCount() {
+        PersistenceWriteBuffer<ItemVO> buffer = writeBuffer;
+        return buffer != null ? buffer.getDroppedCount() : 0;
+    }
+
     @Override
     public String getId() {
         logger.debug("JDBC::getName: returning name 'jdbc' for queryable persistence service.");
@@ -137,6 +195,7 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
             logger.warn(
                     "JDBC::store:  No connection to database. Cannot persist item '{}'! Will retry connecting to database when error count:{} equals errReconnectThreshold:{}",
                     item, errCnt, conf.getErrReconnectThreshold());
+            metrics.storeFailed(1);
             return;
         }
         long timerStart = System.currentTimeMillis();
@@ -152,7 +211,8 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
 
     /**
      * Queries the {@link PersistenceService} for data with a given filter
-     * criteria
+     * criteria. The values are never aggregated, so persistence extensions compute their results from the stored
+     * values.
      *
      * @param filter
      *            the filter to apply to the query
@@ -160,8 +220,28 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
      */
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
+        return query(filter, 0, JdbcAggregation.AVG);
+    }
+
+    /**
+     * Queries the {@link PersistenceService} for at most about <code>maxPoints</code> values. The time between begin
+     * and end date of the filter is divided into equally long buckets and the values of each bucket are combined by
+     * the database. Filters without begin or end date, paged filters, filters on a state and items other than number
+     * items are queried without aggregation. This is only meant for callers which display the values, like charts, as
+     * the combined values replace the stored ones.
+     *
+     * @param filter
+     *            the filter to apply to the query
+     * @param maxPoints
+     *            the maximum number of values to return, 0 disables aggregation
+     * @param aggregation
+     *            the function combining the values of a bucket
+     * @return a time series of items
+     */
+    public Iterable<HistoricItem> query(FilterCriteria filter, int maxPoints, JdbcAggregation aggregation) {
         if (!checkDBAccessability()) {
             logger.warn("JDBC::query: database not connected, query aborted for item '{}'", filter.getItemName());
+            metrics.queryFailed();
             return List.of();
         }
 
@@ -201,23 +281,68 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
             table = getTable(item);
         }
 
+        long start = System.nanoTime();
+        long bucketSeconds = getBucketSeconds(filter, item, maxPoints);
         long timerStart = System.currentTimeMillis();
-        List<HistoricItem> items = getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
+        List<HistoricItem> items;
+        try {
+            if (bucketSeconds > 0) {
+                items = getHistItemAggregateQuery(filter, table, item, aggregation, bucketSeconds);
+            } else if (conf.getFetchSize() > 0 && filter.getPageSize() == Integer.MAX_VALUE) {
+                // unpaged queries may return large results, convert the rows while they are fetched
+                items = getHistItemFilterQueryFetched(filter, conf.getNumberDecimalcount(), table, item,
+                        conf.getFetchSize());
+            } else {
+                items = getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
+            }
+        } catch (RuntimeException e) {
+            metrics.queryFailed();
+            throw e;
+        }
 
         logger.debug("JDBC::query: query for {} returned {} rows in {} ms", itemName, items.size(),
                 System.currentTimeMillis() - timerStart);
 
         // Success
         errCnt = 0;
-        return items;
+        return metrics.recordQuery(start, items);
+    }
+
+    /**
+     * @return the width of the time buckets for an aggregated query, or 0 if the query is not aggregated
+     */
+    private long getBucketSeconds(FilterCriteria filter, Item item, int maxPoints) {
+        ZonedDateTime begin = filter.getBeginDate();
+        ZonedDateTime end = filter.getEndDate();
+        if (maxPoints <= 0 || begin == null || end == null || filter.getPageSize() != Integer.MAX_VALUE
+                || filter.getState() != null || !(item instanceof NumberItem)) {
+            return 0;
+        }
+        long rangeSeconds = Duration.between(begin, end).getSeconds();
+        if (rangeSeconds <= 0) {
+            return 0;
+        }
+        return Math.max(1, (rangeSeconds + maxPoints - 1) / maxPoints);
     }
 
     public void updateConfig(Map<Object, Object> configuration) {
         logger.debug("JDBC::updateConfig");
 
+        stopWriteBuffer();
         conf = new JdbcConfiguration(configuration);
+        MeterRegistryProvider meterRegistryProvider = this.meterRegistryProvider;
+        if (meterRegistryProvider != null) {
+            // the database type may have changed
+            setMetrics(createMetrics(meterRegistryProvider));
+        }
         if (conf.valid && checkDBAccessability()) {
             checkDBSchema();
+            if (conf.getBatchSize() > 0) {
+                writeBuffer = new PersistenceWriteBuffer<>(getId(), values -> {
+                    storeItemValues(values);
+                    return true;
+                }, conf.getBatchSize(), conf.getBatchInterval(), 0, conf.getBufferSize());
+            }
             // connection has been established ... initialization completed!
             initialized = true;
         } else {
@@ -227,6 +352,14 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
         logger.debug("JDBC::updateConfig: configuration complete for service={}.", getId());
     }
 
+    private void stopWriteBuffer() {
+        PersistenceWriteBuffer<ItemVO> buffer = writeBuffer;
+        if (buffer != null) {
+            writeBuffer = null;
+            buffer.close();
+        }
+    }
+
     @Override
     public List<PersistenceStrategy> getDefaultStrategies() {
         return List.of(PersistenceStrategy.Globals.CHANGE);
@@ -32,6 +32,13 @@ public class JpaConfiguration {
     private static final String CFG_USERNAME = "user";
     private static final String CFG_PASSWORD = "password";
     private static final String CFG_SYNCMAPPING = "syncmappings";
+    private static final String CFG_BATCH_SIZE = "batchSize";
+    private static final String CFG_BATCH_INTERVAL = "batchInterval";
+    private static final String CFG_BUFFER_SIZE = "bufferSize";
+
+    private static final int DEFAULT_BATCH_SIZE = 0;
+    private static final int DEFAULT_BATCH_INTERVAL = 1000;
+    private static final int DEFAULT_BUFFER_SIZE = 10000;
 
     public static boolean isInitialized = false;
 
@@ -40,6 +47,12 @@ public class JpaConfiguration {
     public final String dbUserName;
     public final String dbPassword;
     public final String dbSyncMapping;
+    /** number of values stored in one transaction, values below 2 store each value immediately */
+    public final int batchSize;
+    /** maximum time in milliseconds a value is buffered */
+    public final int batchInterval;
+    /** maximum number of buffered values */
+    public final int bufferSize;
 
     public JpaConfiguration(final Map<String, Object> properties) {
         logger.debug("Update config...");
@@ -77,7 +90,27 @@ public class JpaConfiguration {
         }
         dbSyncMapping = (String) properties.get(CFG_SYNCMAPPING);
 
+        batchSize = getIntValue(properties, CFG_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        batchInterval = getIntValue(properties, CFG_BATCH_INTERVAL, DEFAULT_BATCH_INTERVAL);
+        bufferSize = getIntValue(properties, CFG_BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+        logger.debug("batchSize: {}, batchInterval: {}, bufferSize: {}", batchSize, batchInterval, bufferSize);
+
         isInitialized = true;
         logger.debug("Update config... done");
     }
+
+    private int getIntValue(Map<String, Object> properties, String key, int defaultValue) {
+        Object value = properties.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String && !((String) value).isBlank()) {
+            try {
+                return Integer.parseInt(((String) value).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value '{}' for {}, using {}", value, key, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
 }
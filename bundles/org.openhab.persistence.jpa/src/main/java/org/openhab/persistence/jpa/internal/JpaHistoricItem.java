@@ -12,6 +12,7 @@
  */
 package org.openhab.persistence.jpa.internal;
 
+import java.math.BigDecimal;
 import java.text.DateFormat;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -102,10 +103,12 @@ public class JpaHistoricItem implements HistoricItem {
      */
     public static HistoricItem fromPersistedItem(JpaPersistentItem pItem, Item item) {
         State state;
+        Double number = pItem.getNumericValue();
         if (item instanceof NumberItem) {
-            state = new DecimalType(Double.valueOf(pItem.getValue()));
+            state = new DecimalType(number != null ? number : Double.valueOf(pItem.getValue()));
         } else if (item instanceof DimmerItem) {
-            state = new PercentType(Integer.valueOf(pItem.getValue()));
+            state = number != null ? new PercentType(BigDecimal.valueOf(number))
+                    : new PercentType(Integer.valueOf(pItem.getValue()));
         } else if (item instanceof SwitchItem) {
             state = OnOffType.valueOf(pItem.getValue());
         } else if (item instanceof ContactItem) {
@@ -27,10 +27,12 @@ import javax.persistence.Query;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Operator;
 import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -38,6 +40,8 @@ import org.openhab.core.persistence.PersistenceService;
 import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.UnDefType;
+import org.openhab.io.metrics.persistence.PersistenceMetrics;
+import org.openhab.io.metrics.persistence.PersistenceWriteBuffer;
 import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
@@ -45,6 +49,8 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,6 +63,8 @@ import org.slf4j.LoggerFactory;
 @Component(service = { PersistenceService.class,
         QueryablePersistenceService.class }, configurationPid = "org.openhab.jpa", configurationPolicy = ConfigurationPolicy.REQUIRE)
 public class JpaPersistenceService implements QueryablePersistenceService {
+    private static final String SERVICE_ID = "jpa";
+
     private final Logger logger = LoggerFactory.getLogger(JpaPersistenceService.class);
 
     private final ItemRegistry itemRegistry;
@@ -65,6 +73,11 @@ public class JpaPersistenceService implements QueryablePersistenceService {
 
     private @NonNullByDefault({}) JpaConfiguration config;
 
+    private @Nullable PersistenceWriteBuffer<JpaPersistentItem> writeBuffer;
+
+    private @Nullable MeterRegistryProvider meterRegistryProvider;
+    private volatile PersistenceMetrics metrics = new PersistenceMetrics(SERVICE_ID);
+
     @Activate
     public JpaPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -86,6 +99,12 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     public void activate(BundleContext context, Map<String, Object> properties) {
         logger.debug("Activating jpa persistence service");
         config = new JpaConfiguration(properties);
+        if (config.batchSize > 1 && config.batchInterval > 0) {
+            writeBuffer = new PersistenceWriteBuffer<>(SERVICE_ID, pItems -> {
+                persist(pItems);
+                return true;
+            }, config.batchSize, config.batchInterval, 0, config.bufferSize);
+        }
     }
 
     /**
@@ -94,12 +113,49 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     @Deactivate
     public void deactivate() {
         logger.debug("Deactivating jpa persistence service");
+        PersistenceWriteBuffer<JpaPersistentItem> localWriteBuffer = writeBuffer;
+        if (localWriteBuffer != null) {
+            localWriteBuffer.close();
+            writeBuffer = null;
+        }
         closeEntityManagerFactory();
     }
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected void setMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        setMetrics(new PersistenceMetrics(meterRegistryProvider.getOHMeterRegistry(), SERVICE_ID));
+    }
+
+    protected void unsetMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        if (this.meterRegistryProvider == meterRegistryProvider) {
+            this.meterRegistryProvider = null;
+            setMetrics(new PersistenceMetrics(SERVICE_ID));
+        }
+    }
+
+    private void setMetrics(PersistenceMetrics metrics) {
+        metrics.gauge("buffer.size", "Items waiting in the write buffer", this, service -> service.getBufferedCount());
+        metrics.counter("buffer.dropped", "Items dropped because the write buffer was full", this,
+                service -> service.getDroppedCount());
+        PersistenceMetrics oldMetrics = this.metrics;
+        this.metrics = metrics;
+        oldMetrics.close();
+    }
+
+    private int getBufferedCount() {
+        PersistenceWriteBuffer<JpaPersistentItem> localWriteBuffer = writeBuffer;
+        return localWriteBuffer != null ? localWriteBuffer.getBufferedCount() : 0;
+    }
+
+    private long getDroppedCount() {
+        PersistenceWriteBuffer<JpaPersistentItem> localWriteBuffer = writeBuffer;
+        return localWriteBuffer != null ? localWriteBuffer.getDroppedCount() : 0;
+    }
+
     @Override
     public String getId() {
-        return "jpa";
+        return SERVICE_ID;
     }
 
     @Override
@@ -138,26 +194,65 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             logger.error("Error on converting state value to string: {}", e1.getMessage());
             return;
         }
+        pItem.setNumericValue(StateHelper.toNumber(item.getState(), item));
         pItem.setName(name);
         pItem.setRealName(item.getName());
         pItem.setTimestamp(new Date());
 
+        PersistenceWriteBuffer<JpaPersistentItem> localWriteBuffer = writeBuffer;
+        if (localWriteBuffer != null) {
+            localWriteBuffer.offer(pItem);
+        } else {
+            persist(List.of(pItem));
+        }
+
+        logger.debug("Storing item...done");
+    }
+
+    /**
+     * Persists the given items in one transaction. If the transaction fails, the items are persisted one by one, so
+     * that a single bad value does not discard the whole batch.
+     */
+    private void persist(List<JpaPersistentItem> pItems) {
+        long start = System.nanoTime();
+        try {
+            persistInTransaction(pItems);
+            metrics.recordStore(start, pItems.size());
+        } catch (RuntimeException e) {
+            if (pItems.size() == 1) {
+                logger.error("Error on persisting item!", e);
+                metrics.storeFailed(1);
+                return;
+            }
+            logger.warn("Persisting {} items in one transaction failed, persisting them separately: {}", pItems.size(),
+                    e.getMessage());
+            for (JpaPersistentItem pItem : pItems) {
+                // the failed transaction may have assigned an id
+                pItem.setId(null);
+                persist(List.of(pItem));
+            }
+        }
+    }
+
+    private void persistInTransaction(List<JpaPersistentItem> pItems) {
         EntityManager em = getEntityManagerFactory().createEntityManager();
         try {
-            logger.debug("Persisting item...");
+            logger.debug("Persisting {} items...", pItems.size());
             // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
             em.getTransaction().begin();
-            em.persist(pItem);
+            for (JpaPersistentItem pItem : pItems) {
+                em.persist(pItem);
+            }
             em.getTransaction().commit();
-            logger.debug("Persisting item...done");
-        } catch (Exception e) {
-            logger.error("Error on persisting item! Rolling back!", e);
-            em.getTransaction().rollback();
+            logger.debug("Persisting items...done");
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
         } finally {
             em.close();
         }
-
-        logger.debug("Storing item...done");
     }
 
     @Override
@@ -196,10 +291,17 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             queryString += " AND n.timestamp <= :endDate";
             hasEndDate = true;
         }
+        Double number = filter.getState() == null ? null : StateHelper.toNumber(filter.getState(), item);
+        String operator = number == null ? null : toJpqlOperator(filter.getOperator());
+        if (operator != null) {
+            // values stored by earlier versions have no numeric value and never match
+            queryString += " AND n.numericValue " + operator + " :number";
+        }
         queryString += " ORDER BY n.timestamp " + sortOrder;
 
         logger.debug("The query: {}", queryString);
 
+        long start = System.nanoTime();
         EntityManager em = getEntityManagerFactory().createEntityManager();
         try {
             // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
@@ -214,6 +316,9 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             if (hasEndDate) {
                 query.setParameter("endDate", Date.from(filter.getEndDate().toInstant()));
             }
+            if (operator != null) {
+                query.setParameter("number", number);
+            }
 
             query.setFirstResult(filter.getPageNumber() * filter.getPageSize());
             query.setMaxResults(filter.getPageSize());
@@ -229,9 +334,10 @@ public class JpaPersistenceService implements QueryablePersistenceService {
 
             em.getTransaction().commit();
 
-            return historicList;
+            return metrics.recordQuery(start, historicList);
         } catch (Exception e) {
             logger.error("Error on querying database!", e);
+            metrics.queryFailed();
             em.getTransaction().rollback();
         } finally {
             em.close();
@@ -240,6 +346,26 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         return Collections.emptyList();
     }
 
+    private @Nullable String toJpqlOperator(Operator operator) {
+        switch (operator) {
+            case EQ:
+                return "=";
+            case NEQ:
+                return "<>";
+            case GT:
+                return ">";
+            case GTE:
+                return ">=";
+            case LT:
+                return "<";
+            case LTE:
+                return "<=";
+            default:
+                logger.warn("Operator {} is not supported for numeric values, ignoring it", operator);
+                return null;
+        }
+    }
+
     /**
      * Creates a new EntityManagerFactory with properties read from openhab.cfg via JpaConfiguration.
      *
@@ -264,6 +390,10 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             logger.warn("You are settings openjpa.jdbc.SynchronizeMappings, I hope you know what you're doing!");
             properties.put("openjpa.jdbc.SynchronizeMappings", config.dbSyncMapping);
         }
+        if (writeBuffer != null) {
+            // send the inserts of a transaction as JDBC batches
+            properties.put("openjpa.jdbc.DBDictionary", "batchLimit=" + config.batchSize);
+        }
 
         EntityManagerFactory fac = Persistence.createEntityManagerFactory(getPersistenceUnitName(), properties);
         logger.debug("Creating EntityManagerFactory...done");
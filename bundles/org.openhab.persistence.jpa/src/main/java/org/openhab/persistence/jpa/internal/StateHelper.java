@@ -14,9 +14,14 @@ package org.openhab.persistence.jpa.internal;
 
 import java.util.Locale;
 
+import javax.measure.Unit;
+
+import org.openhab.core.items.Item;
+import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.library.types.DateTimeType;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.PointType;
+import org.openhab.core.library.types.QuantityType;
 import org.openhab.core.types.State;
 
 /**
@@ -49,4 +54,39 @@ public class StateHelper {
 
         return state.toString();
     }
+
+    /**
+     * Converts the given State to the value of the numeric column
+     *
+     * @param state the state of the item to be persisted
+     * @return the number, or null if the state is not numeric
+     */
+    public static Double toNumber(State state) {
+        if (state instanceof DecimalType) {
+            return ((DecimalType) state).doubleValue();
+        }
+        if (state instanceof QuantityType) {
+            return ((QuantityType<?>) state).doubleValue();
+        }
+        return null;
+    }
+
+    /**
+     * Converts the given State to the value of the numeric column. A quantity is converted to the unit of its item, so
+     * all values of the item are stored in the same unit and can be compared.
+     *
+     * @param state the state of the item to be persisted
+     * @param item the item of the state, if known
+     * @return the number, or null if the state is not numeric or can't be converted to the unit of the item
+     */
+    public static Double toNumber(State state, Item item) {
+        if (state instanceof QuantityType && item instanceof NumberItem) {
+            Unit<?> unit = ((NumberItem) item).getUnit();
+            if (unit != null) {
+                QuantityType<?> quantity = ((QuantityType<?>) state).toUnit(unit);
+                return quantity != null ? quantity.doubleValue() : null;
+            }
+        }
+        return toNumber(state);
+    }
 }
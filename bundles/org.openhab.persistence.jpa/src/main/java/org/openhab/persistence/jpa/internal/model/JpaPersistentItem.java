@@ -51,6 +51,8 @@ public class JpaPersistentItem implements HistoricItem {
     private Date timestamp = new Date();
     @Column(length = 32672) // 32k, max varchar for apache derby
     private String value = "";
+    // null for non-numeric states and for values stored by earlier versions
+    private Double numericValue;
 
     public Long getId() {
         return id;
@@ -94,6 +96,14 @@ public class JpaPersistentItem implements HistoricItem {
         this.value = value;
     }
 
+    public Double getNumericValue() {
+        return numericValue;
+    }
+
+    public void setNumericValue(Double numericValue) {
+        this.numericValue = numericValue;
+    }
+
     @Override
     public State getState() {
         return UnDefType.NULL;
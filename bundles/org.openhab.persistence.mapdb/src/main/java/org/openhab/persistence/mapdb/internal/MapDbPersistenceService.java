@@ -17,23 +17,33 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.mapdb.BTreeKeySerializer;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
 import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
@@ -43,9 +53,14 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.openhab.io.metrics.persistence.PersistenceMetrics;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,7 +75,8 @@ import com.google.gson.GsonBuilder;
  * @author Martin Kühl - Port to 3.x
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class,
+        QueryablePersistenceService.class }, configurationPid = "org.openhab.mapdb", configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
     private static final String SERVICE_ID = "mapdb";
@@ -68,23 +84,49 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
     private static final Path DB_DIR = new File(OpenHAB.getUserDataFolder(), "persistence").toPath().resolve("mapdb");
     private static final Path BACKUP_DIR = DB_DIR.resolve("backup");
     private static final String DB_FILE_NAME = "storage.mapdb";
+    /** name of the map holding the binary encoded states */
+    private static final String STATES_MAP_NAME = "itemStates";
+    /** name of the map holding JSON encoded states, which are migrated on activation */
+    private static final String LEGACY_MAP_NAME = "itemStore";
+
+    private static final String CONFIG_COMMIT_INTERVAL = "commitInterval";
+    private static final long DEFAULT_COMMIT_INTERVAL = 1000;
 
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
-    private final ExecutorService threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(getClass().getSimpleName());
 
     /** holds the local instance of the MapDB database */
 
     private @NonNullByDefault({}) DB db;
-    private @NonNullByDefault({}) Map<String, String> map;
+    private @NonNullByDefault({}) Map<String, byte[]> map;
+
+    /** holds the decoded states of all items, so that queries do not need to access the database */
+    private final Map<String, MapDbItem> items = new ConcurrentHashMap<>();
+    private volatile Duration loadDuration = Duration.ZERO;
+
+    private final MapDbItemCodec codec = new MapDbItemCodec();
 
-    private transient Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
-            .create();
+    private final AtomicBoolean commitScheduled = new AtomicBoolean();
+    private long commitInterval = DEFAULT_COMMIT_INTERVAL;
+
+    private @Nullable MeterRegistryProvider meterRegistryProvider;
+    private volatile PersistenceMetrics metrics = new PersistenceMetrics(SERVICE_ID);
 
     @Activate
-    public void activate() {
+    public void activate(final Map<String, Object> config) {
         logger.debug("MapDB persistence service is being activated");
 
+        Object commitIntervalValue = config.get(CONFIG_COMMIT_INTERVAL);
+        if (commitIntervalValue != null) {
+            try {
+                commitInterval = Math.max(0, Long.parseLong(commitIntervalValue.toString().trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring illegal commit interval '{}', using {} ms", commitIntervalValue,
+                        DEFAULT_COMMIT_INTERVAL);
+            }
+        }
+
         try {
             Files.createDirectories(DB_DIR);
         } catch (IOException e) {
@@ -96,7 +138,7 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         File dbFile = DB_DIR.resolve(DB_FILE_NAME).toFile();
         try {
             db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
-            map = db.createTreeMap("itemStore").makeOrGet();
+            map = openMap();
         } catch (RuntimeException re) {
             Throwable cause = re.getCause();
             if (cause instanceof ClassNotFoundException) {
@@ -129,21 +171,106 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
                 }
 
                 db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
-                map = db.createTreeMap("itemStore").makeOrGet();
+                map = openMap();
             } else {
                 logger.warn("Failed to create or open the MapDB: {}", re.getMessage());
                 logger.warn("MapDB persistence service activation has failed.");
             }
         }
+        if (map != null) {
+            loadItems();
+        }
         logger.debug("MapDB persistence service is now activated");
     }
 
+    /**
+     * Decode all stored states at once, so that restoring the states on startup does not decode them item by item
+     */
+    private void loadItems() {
+        long start = System.nanoTime();
+        // the tree map is read sequentially, decoding is done in parallel
+        List<Map.Entry<String, byte[]>> entries = new ArrayList<>(map.entrySet());
+        entries.parallelStream().map(entry -> deserialize(entry.getKey(), entry.getValue()))
+                .flatMap(MapDbPersistenceService::streamOptional).forEach(item -> items.put(item.getName(), item));
+        loadDuration = Duration.ofNanos(System.nanoTime() - start);
+        logger.debug("Loaded {} item states from MapDB database in {} ms", items.size(), loadDuration.toMillis());
+    }
+
+    /**
+     * Get the time it took to load all stored states on activation
+     *
+     * @return the duration of the load
+     */
+    public Duration getLoadDuration() {
+        return loadDuration;
+    }
+
     @Deactivate
     public void deactivate() {
         logger.debug("MapDB persistence service deactivated");
         if (db != null) {
-            db.close();
+            synchronized (db) {
+                if (!db.isClosed()) {
+                    // commit the values stored since the last scheduled commit
+                    db.commit();
+                    db.close();
+                }
+            }
+        }
+    }
+
+    private Map<String, byte[]> openMap() {
+        Map<String, byte[]> states = db.createTreeMap(STATES_MAP_NAME).keySerializer(BTreeKeySerializer.STRING)
+                .valueSerializer(Serializer.BYTE_ARRAY).makeOrGet();
+        if (db.exists(LEGACY_MAP_NAME)) {
+            migrate(states);
         }
+        return states;
+    }
+
+    /**
+     * Convert the JSON encoded states of previous versions to the binary format
+     *
+     * @param states the map to store the binary encoded states in
+     */
+    @SuppressWarnings("null")
+    private void migrate(Map<String, byte[]> states) {
+        Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter()).create();
+        Map<String, String> legacyStates = db.getTreeMap(LEGACY_MAP_NAME);
+        int migrated = 0;
+        for (Map.Entry<String, String> entry : legacyStates.entrySet()) {
+            MapDbItem item = mapper.fromJson(entry.getValue(), MapDbItem.class);
+            if (item != null && item.isValid()) {
+                states.putIfAbsent(entry.getKey(), codec.encode(item));
+                migrated++;
+            } else {
+                logger.warn("Dropping invalid state of '{}' during migration: {}", entry.getKey(), entry.getValue());
+            }
+        }
+        db.delete(LEGACY_MAP_NAME);
+        db.commit();
+        logger.info("Migrated {} item states to the binary format", migrated);
+    }
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected void setMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        setMetrics(new PersistenceMetrics(meterRegistryProvider.getOHMeterRegistry(), SERVICE_ID));
+    }
+
+    protected void unsetMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        if (this.meterRegistryProvider == meterRegistryProvider) {
+            this.meterRegistryProvider = null;
+            setMetrics(new PersistenceMetrics(SERVICE_ID));
+        }
+    }
+
+    private void setMetrics(PersistenceMetrics metrics) {
+        metrics.gauge("load.duration", "Time in seconds to load the stored states on activation", this,
+                service -> service.getLoadDuration().toNanos() / 1e9);
+        PersistenceMetrics oldMetrics = this.metrics;
+        this.metrics = metrics;
+        oldMetrics.close();
     }
 
     @Override
@@ -158,8 +285,7 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        return map.values().stream().map(this::deserialize).flatMap(MapDbPersistenceService::streamOptional)
-                .collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
+        return items.values().stream().collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
     }
 
     @Override
@@ -177,48 +303,73 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         String localAlias = alias == null ? item.getName() : alias;
         logger.debug("store called for {}", localAlias);
 
+        long start = System.nanoTime();
         State state = item.getState();
         MapDbItem mItem = new MapDbItem();
         mItem.setName(localAlias);
         mItem.setState(state);
         mItem.setTimestamp(new Date());
-        String json = serialize(mItem);
-        map.put(localAlias, json);
-        commit();
-        if (logger.isDebugEnabled()) {
-            logger.debug("Stored '{}' with state '{}' as '{}' in MapDB database", localAlias, state, json);
+        try {
+            map.put(localAlias, codec.encode(mItem));
+        } catch (RuntimeException e) {
+            metrics.storeFailed(1);
+            throw e;
         }
+        items.put(localAlias, mItem);
+        commit();
+        metrics.recordStore(start, 1);
+        logger.debug("Stored '{}' with state '{}' in MapDB database", localAlias, state);
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
-            return List.of();
-        }
-        Optional<MapDbItem> item = deserialize(json);
-        return item.isPresent() ? List.of(item.get()) : List.of();
+        long start = System.nanoTime();
+        MapDbItem item = items.get(filter.getItemName());
+        return metrics.recordQuery(start, item != null ? List.of(item) : List.of());
     }
 
-    private String serialize(MapDbItem item) {
-        return mapper.toJson(item);
+    /**
+     * Get the stored states of several items in one call, e.g. to restore them on startup
+     *
+     * @param itemNames the names of the items
+     * @return the stored states by item name, items without a stored state are omitted
+     */
+    public Map<String, State> getStates(Collection<String> itemNames) {
+        Map<String, State> states = new HashMap<>();
+        for (String itemName : itemNames) {
+            MapDbItem item = items.get(itemName);
+            if (item != null) {
+                states.put(itemName, item.getState());
+            }
+        }
+        return states;
     }
 
-    @SuppressWarnings("null")
-    private Optional<MapDbItem> deserialize(String json) {
-        MapDbItem item = mapper.<MapDbItem> fromJson(json, MapDbItem.class);
-        if (item == null || !item.isValid()) {
-            logger.warn("Deserialized invalid item: {}", item);
+    private Optional<MapDbItem> deserialize(String name, byte[] data) {
+        MapDbItem item = codec.decode(name, data);
+        if (item == null) {
             return Optional.empty();
-        } else if (logger.isDebugEnabled()) {
-            logger.debug("Deserialized '{}' with state '{}' from '{}'", item.getName(), item.getState(), json);
         }
-
+        logger.trace("Deserialized '{}' with state '{}'", name, item.getState());
         return Optional.of(item);
     }
 
+    /**
+     * Schedule a commit of all changes. Changes made until the commit is executed are committed together, so that there
+     * is at most one commit per commit interval.
+     */
     private void commit() {
-        threadPool.submit(() -> db.commit());
+        if (commitScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                // reset first, so that changes made during the commit schedule the next one
+                commitScheduled.set(false);
+                synchronized (db) {
+                    if (!db.isClosed()) {
+                        db.commit();
+                    }
+                }
+            }, commitInterval, TimeUnit.MILLISECONDS);
+        }
     }
 
     private static <T> Stream<T> streamOptional(Optional<T> opt) {
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.SwitchItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.core.types.State;
+import org.openhab.persistence.mapdb.internal.MapDbPersistenceService;
+
+/**
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbPersistenceServiceTest {
+
+    private static @TempDir @NonNullByDefault({}) Path userData;
+
+    @BeforeAll
+    public static void setUserData() {
+        // the database folder is resolved when the service class is loaded
+        System.setProperty("openhab.userdata", userData.toString());
+    }
+
+    @Test
+    public void storedStatesAreLoadedOnActivation() {
+        MapDbPersistenceService service = new MapDbPersistenceService();
+        service.activate(Map.of());
+
+        NumberItem temperature = new NumberItem("Temperature");
+        temperature.setState(new DecimalType("21.5"));
+        service.store(temperature);
+        SwitchItem light = new SwitchItem("Light");
+        light.setState(OnOffType.ON);
+        service.store(light);
+        assertThat(queryState(service, "Temperature"), is(new DecimalType("21.5")));
+
+        temperature.setState(new DecimalType("22"));
+        service.store(temperature);
+        assertThat(queryState(service, "Temperature"), is(new DecimalType("22")));
+        service.deactivate();
+
+        MapDbPersistenceService restarted = new MapDbPersistenceService();
+        restarted.activate(Map.of());
+        try {
+            assertThat(restarted.getStates(List.of("Temperature", "Light", "Unknown")),
+                    is(Map.of("Temperature", new DecimalType("22"), "Light", OnOffType.ON)));
+            assertThat(queryState(restarted, "Light"), is(OnOffType.ON));
+            assertThat(restarted.query(new FilterCriteria().setItemName("Unknown")).iterator().hasNext(), is(false));
+            assertThat(restarted.getLoadDuration().isNegative(), is(false));
+        } finally {
+            restarted.deactivate();
+        }
+    }
+
+    private State queryState(MapDbPersistenceService service, String itemName) {
+        Iterator<HistoricItem> result = service.query(new FilterCriteria().setItemName(itemName)).iterator();
+        assertThat(result.hasNext(), is(true));
+        State state = result.next().getState();
+        assertThat(result.hasNext(), is(false));
+        return state;
+    }
+}
@@ -17,14 +17,17 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bson.types.ObjectId;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
@@ -50,18 +53,25 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.openhab.io.metrics.persistence.PersistenceMetrics;
+import org.openhab.io.metrics.persistence.PersistenceWriteBuffer;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.mongodb.AggregationOptions;
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.Cursor;
 import com.mongodb.DBCollection;
-import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientURI;
@@ -77,12 +87,23 @@ import com.mongodb.MongoClientURI;
         QueryablePersistenceService.class }, configurationPid = "org.openhab.mongodb", configurationPolicy = ConfigurationPolicy.REQUIRE)
 public class MongoDBPersistenceService implements QueryablePersistenceService {
 
+    private static final String SERVICE_ID = "mongodb";
     private static final String FIELD_ID = "_id";
     private static final String FIELD_ITEM = "item";
     private static final String FIELD_REALNAME = "realName";
     private static final String FIELD_TIMESTAMP = "timestamp";
     private static final String FIELD_VALUE = "value";
 
+    private static final int DEFAULT_BATCH_INTERVAL = 1000;
+    private static final int DEFAULT_BUFFER_SIZE = 10000;
+    private static final int QUERY_BATCH_SIZE = 1000;
+
+    // the only fields needed to create historic items
+    private static final DBObject PROJECTION = new BasicDBObject(FIELD_TIMESTAMP, 1).append(FIELD_VALUE, 1)
+            .append(FIELD_ID, 0);
+    private static final DBObject INDEX = new BasicDBObject(FIELD_ITEM, 1).append(FIELD_TIMESTAMP, 1);
+    private static final List<String> AGGREGATE_FUNCTIONS = List.of("avg", "min", "max", "last");
+
     private final Logger logger = LoggerFactory.getLogger(MongoDBPersistenceService.class);
 
     private String url = "";
@@ -96,6 +117,13 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
 
     private @Nullable MongoClient cl;
 
+    // collections with their index ensured, valid as long as the client is connected
+    private final Map<String, DBCollection> collections = new ConcurrentHashMap<>();
+    private volatile @Nullable PersistenceWriteBuffer<PendingDocument> writeBuffer;
+
+    private @Nullable MeterRegistryProvider meterRegistryProvider;
+    private volatile PersistenceMetrics metrics = new PersistenceMetrics(SERVICE_ID);
+
     @Activate
     public MongoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -131,18 +159,79 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             logger.warn("Failed to connect to MongoDB server. Trying to reconnect later.");
         }
 
+        int batchSize = getConfigIntValue(config, "batchSize", 0);
+        if (batchSize > 0) {
+            writeBuffer = new PersistenceWriteBuffer<>(SERVICE_ID, documents -> {
+                storeDocuments(documents);
+                return true;
+            }, batchSize, getConfigIntValue(config, "batchInterval", DEFAULT_BATCH_INTERVAL), 0,
+                    getConfigIntValue(config, "bufferSize", DEFAULT_BUFFER_SIZE));
+        }
+
         initialized = true;
     }
 
+    private int getConfigIntValue(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        } else if (value instanceof String && !((String) value).isBlank()) {
+            try {
+                return Integer.parseInt(((String) value).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value '{}' for mongodb:{}, using {}", value, key, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     @Deactivate
     public void deactivate(final int reason) {
         logger.debug("MongoDB persistence bundle stopping. Disconnecting from database.");
+        PersistenceWriteBuffer<PendingDocument> buffer = writeBuffer;
+        if (buffer != null) {
+            writeBuffer = null;
+            buffer.close();
+        }
         disconnectFromDatabase();
     }
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected void setMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        setMetrics(new PersistenceMetrics(meterRegistryProvider.getOHMeterRegistry(), SERVICE_ID));
+    }
+
+    protected void unsetMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        if (this.meterRegistryProvider == meterRegistryProvider) {
+            this.meterRegistryProvider = null;
+            setMetrics(new PersistenceMetrics(SERVICE_ID));
+        }
+    }
+
+    private void setMetrics(PersistenceMetrics metrics) {
+        metrics.gauge("buffer.size", "Documents waiting in the write buffer", this,
+                service -> service.getBufferedCount());
+        metrics.counter("buffer.dropped", "Documents dropped because the write buffer was full", this,
+                service -> service.getDroppedCount());
+        PersistenceMetrics oldMetrics = this.metrics;
+        this.metrics = metrics;
+        oldMetrics.close();
+    }
+
+    private int getBufferedCount() {
+        PersistenceWriteBuffer<PendingDocument> buffer = writeBuffer;
+        return buffer != null ? buffer.getBufferedCount() : 0;
+    }
+
+    private long getDroppedCount() {
+        PersistenceWriteBuffer<PendingDocument> buffer = writeBuffer;
+        return buffer != null ? buffer.getDroppedCount() : 0;
+    }
+
     @Override
     public String getId() {
-        return "mongodb";
+        return SERVICE_ID;
     }
 
     @Override
@@ -163,40 +252,98 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return;
         }
 
+        String realItemName = item.getName();
+        String collectionName = collectionPerItem ? realItemName : this.collection;
+        String name = (alias != null) ? alias : realItemName;
+        Object value = this.convertValue(item.getState());
+
+        DBObject obj = new BasicDBObject();
+        obj.put(FIELD_ID, new ObjectId());
+        obj.put(FIELD_ITEM, name);
+        obj.put(FIELD_REALNAME, realItemName);
+        obj.put(FIELD_TIMESTAMP, new Date());
+        obj.put(FIELD_VALUE, value);
+
+        PersistenceWriteBuffer<PendingDocument> buffer = writeBuffer;
+        if (buffer != null) {
+            buffer.offer(new PendingDocument(collectionName, obj));
+            logger.debug("MongoDB buffered {}={}", name, value);
+            return;
+        }
+
         // Connect to mongodb server if we're not already connected
         // If we can't connect, log.
         if (!tryConnectToDatabase()) {
             logger.warn(
                     "mongodb: No connection to database. Cannot persist item '{}'! Will retry connecting to database next time.",
                     item);
+            metrics.storeFailed(1);
             return;
         }
 
-        String realItemName = item.getName();
-        String collectionName = collectionPerItem ? realItemName : this.collection;
-
         @Nullable
         DBCollection collection = connectToCollection(collectionName);
 
         if (collection == null) {
             // Logging is done in connectToCollection()
+            metrics.storeFailed(1);
             return;
         }
 
-        String name = (alias != null) ? alias : realItemName;
-        Object value = this.convertValue(item.getState());
-
-        DBObject obj = new BasicDBObject();
-        obj.put(FIELD_ID, new ObjectId());
-        obj.put(FIELD_ITEM, name);
-        obj.put(FIELD_REALNAME, realItemName);
-        obj.put(FIELD_TIMESTAMP, new Date());
-        obj.put(FIELD_VALUE, value);
-        collection.save(obj);
+        long start = System.nanoTime();
+        try {
+            collection.insert(obj);
+        } catch (RuntimeException e) {
+            metrics.storeFailed(1);
+            throw e;
+        }
+        metrics.recordStore(start, 1);
 
         logger.debug("MongoDB save {}={}", name, value);
     }
 
+    /**
+     * Stores buffered documents with one unordered bulk insert per collection
+     */
+    private void storeDocuments(List<PendingDocument> documents) {
+        if (!tryConnectToDatabase()) {
+            logger.warn("mongodb: No connection to database. Cannot persist {} values! Will retry connecting to "
+                    + "database next time.", documents.size());
+            metrics.storeFailed(documents.size());
+            return;
+        }
+
+        Map<String, List<DBObject>> documentsByCollection = new LinkedHashMap<>();
+        for (PendingDocument document : documents) {
+            documentsByCollection.computeIfAbsent(document.collectionName, k -> new ArrayList<>())
+                    .add(document.document);
+        }
+
+        for (Map.Entry<String, List<DBObject>> entry : documentsByCollection.entrySet()) {
+            @Nullable
+            DBCollection collection = connectToCollection(entry.getKey());
+            if (collection == null) {
+                // Logging is done in connectToCollection()
+                metrics.storeFailed(entry.getValue().size());
+                continue;
+            }
+            BulkWriteOperation bulk = collection.initializeUnorderedBulkOperation();
+            entry.getValue().forEach(bulk::insert);
+            long start = System.nanoTime();
+            try {
+                bulk.execute();
+                metrics.recordStore(start, entry.getValue().size());
+                logger.debug("MongoDB saved {} values in {}", entry.getValue().size(), entry.getKey());
+            } catch (BulkWriteException e) {
+                int failed = e.getWriteErrors().size();
+                metrics.recordStore(start, entry.getValue().size() - failed);
+                metrics.storeFailed(failed);
+                logger.warn("MongoDB failed to save {} of {} values in {}: {}", failed, entry.getValue().size(),
+                        entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
     private Object convertValue(State state) {
         Object value;
         if (state instanceof PercentType) {
@@ -287,6 +434,10 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
      * @return The collection object when collection creation was successful. Null otherwise.
      */
     private @Nullable DBCollection connectToCollection(String collectionName) {
+        DBCollection cached = collections.get(collectionName);
+        if (cached != null) {
+            return cached;
+        }
         try {
             @Nullable
             MongoClient db = getDatabase();
@@ -298,10 +449,10 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
 
             DBCollection mongoCollection = db.getDB(this.db).getCollection(collectionName);
 
-            BasicDBObject idx = new BasicDBObject();
-            idx.append(FIELD_ITEM, 1).append(FIELD_TIMESTAMP, 1);
-            mongoCollection.createIndex(idx);
+            // queries rely on this index, see query(FilterCriteria, int)
+            mongoCollection.createIndex(INDEX);
 
+            collections.put(collectionName, mongoCollection);
             return mongoCollection;
         } catch (Exception e) {
             logger.error("Failed to connect to collection {}: {}", collectionName, e.getMessage(), e);
@@ -313,6 +464,7 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
      * Disconnects from the database
      */
     private synchronized void disconnectFromDatabase() {
+        collections.clear();
         if (this.cl != null) {
             this.cl.close();
         }
@@ -320,16 +472,42 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         cl = null;
     }
 
+    /**
+     * Queries the stored values of an item. The values are never aggregated, so persistence extensions compute their
+     * results from the stored values.
+     */
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
+        return query(filter, 0, "avg");
+    }
+
+    /**
+     * Queries the stored values of an item. The values are read from the cursor in batches and converted while they
+     * are read, and the cursor is closed before the result is returned.
+     *
+     * If maxPoints is greater than 0 and the filter has a begin and end date but neither a page size nor a state, the
+     * values of a {@link NumberItem} are aggregated by the database into at most maxPoints time buckets. This is only
+     * meant for callers which display the values, like charts, as the aggregated values replace the stored ones.
+     *
+     * @param filter the filter criteria
+     * @param maxPoints maximum number of aggregated values, 0 to return all stored values
+     * @param aggregateFunction how the values of a time bucket are combined: avg, min, max or last
+     * @return the historic items
+     */
+    public Iterable<HistoricItem> query(FilterCriteria filter, int maxPoints, String aggregateFunction) {
+        if (!AGGREGATE_FUNCTIONS.contains(aggregateFunction)) {
+            throw new IllegalArgumentException("Unknown aggregate function: " + aggregateFunction);
+        }
         if (!initialized) {
             return Collections.emptyList();
         }
 
         if (!tryConnectToDatabase()) {
+            metrics.queryFailed();
             return Collections.emptyList();
         }
 
+        long start = System.nanoTime();
         String realItemName = filter.getItemName();
         String collectionName = collectionPerItem ? realItemName : this.collection;
         @Nullable
@@ -338,6 +516,7 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         // If collection creation failed, return nothing.
         if (collection == null) {
             // Logging is done in connectToCollection()
+            metrics.queryFailed();
             return Collections.emptyList();
         }
 
@@ -349,7 +528,6 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return Collections.emptyList();
         }
 
-        List<HistoricItem> items = new ArrayList<>();
         BasicDBObject query = new BasicDBObject();
         if (filter.getItemName() != null) {
             query.put(FIELD_ITEM, filter.getItemName());
@@ -380,38 +558,109 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
 
         logger.debug("Query: {}", query);
 
-        Integer sortDir = (filter.getOrdering() == Ordering.ASCENDING) ? 1 : -1;
-        DBCursor cursor = collection.find(query).sort(new BasicDBObject(FIELD_TIMESTAMP, sortDir))
-                .skip(filter.getPageNumber() * filter.getPageSize()).limit(filter.getPageSize());
-
-        while (cursor.hasNext()) {
-            BasicDBObject obj = (BasicDBObject) cursor.next();
-
-            final State state;
-            if (item instanceof NumberItem) {
-                state = new DecimalType(obj.getDouble(FIELD_VALUE));
-            } else if (item instanceof DimmerItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof SwitchItem) {
-                state = OnOffType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof ContactItem) {
-                state = OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof RollershutterItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof DateTimeItem) {
-                state = new DateTimeType(
-                        ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
+        int sortDir = (filter.getOrdering() == Ordering.ASCENDING) ? 1 : -1;
+        ZonedDateTime beginDate = filter.getBeginDate();
+        ZonedDateTime endDate = filter.getEndDate();
+        List<HistoricItem> items;
+        try {
+            if (maxPoints > 0 && item instanceof NumberItem && beginDate != null && endDate != null
+                    && endDate.isAfter(beginDate) && filter.getPageSize() == Integer.MAX_VALUE
+                    && filter.getState() == null) {
+                items = aggregate(collection, query, beginDate.toInstant().toEpochMilli(),
+                        endDate.toInstant().toEpochMilli(), sortDir, item, realItemName, maxPoints, aggregateFunction);
             } else {
-                state = new StringType(obj.getString(FIELD_VALUE));
+                items = find(collection, query, filter, sortDir, item, realItemName);
             }
+        } catch (RuntimeException e) {
+            metrics.queryFailed();
+            throw e;
+        }
+        return metrics.recordQuery(start, items);
+    }
+
+    private List<HistoricItem> find(DBCollection collection, DBObject query, FilterCriteria filter, int sortDir,
+            Item item, String itemName) {
+        DBObject sort = new BasicDBObject(FIELD_TIMESTAMP, sortDir);
+        int skip = filter.getPageNumber() * filter.getPageSize();
+        int limit = filter.getPageSize();
+        int batchSize = Math.min(limit, QUERY_BATCH_SIZE);
+        return read(collection.find(query, PROJECTION).hint(INDEX).sort(sort).skip(skip).limit(limit)
+                .batchSize(batchSize), item, itemName);
+    }
 
-            items.add(new MongoDBItem(realItemName, state,
-                    ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault())));
+    /**
+     * Aggregates the values matching the query into time buckets with $bucket, one historic item per bucket
+     */
+    private List<HistoricItem> aggregate(DBCollection collection, DBObject query, long begin, long end, int sortDir,
+            Item item, String itemName, int maxPoints, String aggregateFunction) {
+        long bucketMillis = Math.max(1000, (end - begin + maxPoints) / maxPoints);
+        // $bucket requires every value to fall into a bucket, so the last boundary is after the end date
+        List<Date> boundaries = new ArrayList<>();
+        long boundary = begin;
+        while (boundary <= end) {
+            boundaries.add(new Date(boundary));
+            boundary += bucketMillis;
+        }
+        boundaries.add(new Date(boundary));
+
+        boolean last = "last".equals(aggregateFunction);
+        DBObject output = new BasicDBObject(FIELD_TIMESTAMP,
+                new BasicDBObject(last ? "$last" : "$min", "$" + FIELD_TIMESTAMP)).append(FIELD_VALUE,
+                        new BasicDBObject("$" + aggregateFunction, "$" + FIELD_VALUE));
+        List<DBObject> pipeline = new ArrayList<>();
+        pipeline.add(new BasicDBObject("$match", query));
+        if (last) {
+            pipeline.add(new BasicDBObject("$sort", new BasicDBObject(FIELD_TIMESTAMP, 1)));
         }
+        pipeline.add(new BasicDBObject("$bucket", new BasicDBObject("groupBy", "$" + FIELD_TIMESTAMP)
+                .append("boundaries", boundaries).append("output", output)));
+        pipeline.add(new BasicDBObject("$sort", new BasicDBObject(FIELD_ID, sortDir)));
+        logger.debug("Aggregation: {}", pipeline);
+
+        AggregationOptions options = AggregationOptions.builder().batchSize(QUERY_BATCH_SIZE)
+                .outputMode(AggregationOptions.OutputMode.CURSOR).allowDiskUse(true).build();
+        return read(collection.aggregate(pipeline, options), item, itemName);
+    }
 
+    /**
+     * Converts the documents of a cursor while they are read. The cursor is closed before returning, so that no
+     * server side cursor is left open by callers which stop reading the result early.
+     */
+    private List<HistoricItem> read(Cursor cursor, Item item, String itemName) {
+        List<HistoricItem> items = new ArrayList<>();
+        try {
+            while (cursor.hasNext()) {
+                items.add(toHistoricItem((BasicDBObject) cursor.next(), item, itemName));
+            }
+        } finally {
+            cursor.close();
+        }
         return items;
     }
 
+    private HistoricItem toHistoricItem(BasicDBObject obj, Item item, String itemName) {
+        final State state;
+        if (item instanceof NumberItem) {
+            state = new DecimalType(obj.getDouble(FIELD_VALUE));
+        } else if (item instanceof DimmerItem) {
+            state = new PercentType(obj.getInt(FIELD_VALUE));
+        } else if (item instanceof SwitchItem) {
+            state = OnOffType.valueOf(obj.getString(FIELD_VALUE));
+        } else if (item instanceof ContactItem) {
+            state = OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
+        } else if (item instanceof RollershutterItem) {
+            state = new PercentType(obj.getInt(FIELD_VALUE));
+        } else if (item instanceof DateTimeItem) {
+            state = new DateTimeType(
+                    ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
+        } else {
+            state = new StringType(obj.getString(FIELD_VALUE));
+        }
+
+        return new MongoDBItem(itemName, state,
+                ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault()));
+    }
+
     private @Nullable String convertOperator(Operator operator) {
         switch (operator) {
             case EQ:
@@ -444,4 +693,17 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     public List<PersistenceStrategy> getDefaultStrategies() {
         return Collections.emptyList();
     }
+
+    /**
+     * A document waiting in the write buffer
+     */
+    private static class PendingDocument {
+        final String collectionName;
+        final DBObject document;
+
+        PendingDocument(String collectionName, DBObject document) {
+            this.collectionName = collectionName;
+            this.document = document;
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.rrd4j.core.RrdDb;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link RRD4jDatabaseCache} keeps a bounded number of {@link RrdDb} handles open, so that storing or querying an
+ * item does not have to open, parse and close its database file every time. If the capacity is exceeded, the least
+ * recently used handle is closed.
+ *
+ * A handle is used and closed while holding its monitor, so callers must synchronize on the returned {@link RrdDb}
+ * and check {@link RrdDb#isClosed()} before using it, as it might have been evicted in the meantime.
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+class RRD4jDatabaseCache {
+
+    private final Logger logger = LoggerFactory.getLogger(RRD4jDatabaseCache.class);
+
+    private final Map<String, RrdDb> handles = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile int capacity;
+
+    RRD4jDatabaseCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the open handle for a database
+     *
+     * @param name the name of the database (item name or alias)
+     * @return the open handle or <code>null</code> if no handle is cached
+     */
+    synchronized @Nullable RrdDb get(String name) {
+        return handles.get(name);
+    }
+
+    /**
+     * Add an open handle to the cache and close the least recently used handles if the capacity is exceeded
+     *
+     * @param name the name of the database (item name or alias)
+     * @param db the open handle
+     */
+    void put(String name, RrdDb db) {
+        List<RrdDb> evicted = new ArrayList<>();
+        synchronized (this) {
+            RrdDb previous = handles.put(name, db);
+            if (previous != null && previous != db) {
+                evicted.add(previous);
+            }
+            evictExceeding(evicted);
+        }
+        evicted.forEach(this::close);
+    }
+
+    /**
+     * Change the maximum number of open handles
+     *
+     * @param capacity the new capacity (at least 1)
+     */
+    void setCapacity(int capacity) {
+        List<RrdDb> evicted = new ArrayList<>();
+        synchronized (this) {
+            this.capacity = Math.max(1, capacity);
+            evictExceeding(evicted);
+        }
+        evicted.forEach(this::close);
+    }
+
+    /**
+     * Close all cached handles
+     */
+    void clear() {
+        List<RrdDb> evicted;
+        synchronized (this) {
+            evicted = new ArrayList<>(handles.values());
+            handles.clear();
+        }
+        evicted.forEach(this::close);
+    }
+
+    private void evictExceeding(List<RrdDb> evicted) {
+        Iterator<RrdDb> iterator = handles.values().iterator();
+        while (handles.size() > capacity && iterator.hasNext()) {
+            evicted.add(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private void close(RrdDb db) {
+        synchronized (db) {
+            try {
+                db.close();
+            } catch (IOException e) {
+                logger.debug("Error closing rrd4j database '{}': {}", db.getPath(), e.getMessage());
+            }
+        }
+    }
+}
@@ -18,7 +18,6 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -28,7 +27,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import javax.measure.Quantity;
@@ -38,6 +36,7 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.common.NamedThreadFactory;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
 import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
@@ -64,17 +63,25 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceCronStrategy;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
+import org.openhab.io.metrics.persistence.PersistenceMetrics;
+import org.openhab.persistence.rrd4j.internal.RRD4jWriteQueue.PendingSample;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
+import org.rrd4j.core.RrdBackendFactory;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
+import org.rrd4j.core.RrdNioBackendFactory;
+import org.rrd4j.core.RrdRandomAccessFileBackendFactory;
 import org.rrd4j.core.Sample;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -93,6 +100,7 @@ import org.slf4j.LoggerFactory;
         QueryablePersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class RRD4jPersistenceService implements QueryablePersistenceService {
 
+    private static final String SERVICE_ID = "rrd4j";
     private static final String DEFAULT_OTHER = "default_other";
     private static final String DEFAULT_NUMERIC = "default_numeric";
     private static final String DEFAULT_QUANTIFIABLE = "default_quantifiable";
@@ -100,29 +108,69 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     private static final Set<String> SUPPORTED_TYPES = Set.of(CoreItemFactory.SWITCH, CoreItemFactory.CONTACT,
             CoreItemFactory.DIMMER, CoreItemFactory.NUMBER, CoreItemFactory.ROLLERSHUTTER, CoreItemFactory.COLOR);
 
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(3,
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(WRITE_THREADS + 1,
             new NamedThreadFactory("RRD4j"));
 
     private final Map<String, RrdDefConfig> rrdDefs = new ConcurrentHashMap<>();
 
     private static final String DATASOURCE_STATE = "state";
 
+    private static final String CONFIG_CACHE_SIZE = "cacheSize";
+    private static final String CONFIG_BACKEND = "backend";
+    private static final String CONFIG_QUEUE_SIZE = "queueSize";
+    private static final int DEFAULT_CACHE_SIZE = 500;
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+    private static final int WRITE_THREADS = 2;
+    private static final long DROPPED_LOG_INTERVAL = 1000;
+    private static final String BACKEND_FILE = "file";
+    private static final String BACKEND_NIO = "nio";
+
     public static final String DB_FOLDER = getUserPersistenceDataFolder() + File.separator + "rrd4j";
 
     private final Logger logger = LoggerFactory.getLogger(RRD4jPersistenceService.class);
 
-    private final Map<String, ScheduledFuture<?>> scheduledJobs = new HashMap<>();
+    private final RRD4jWriteQueue writeQueue = new RRD4jWriteQueue(DEFAULT_QUEUE_SIZE);
+    private volatile boolean writeQueueRunning = true;
+
+    private final RRD4jDatabaseCache databases = new RRD4jDatabaseCache(DEFAULT_CACHE_SIZE);
+    private RrdBackendFactory backendFactory = RrdBackendFactory.getDefaultFactory();
+    private String backendName = "";
 
     protected final ItemRegistry itemRegistry;
+    private @Nullable MeterRegistryProvider meterRegistryProvider;
+    private volatile PersistenceMetrics metrics = new PersistenceMetrics(SERVICE_ID);
 
     @Activate
     public RRD4jPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
     }
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected void setMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        setMetrics(new PersistenceMetrics(meterRegistryProvider.getOHMeterRegistry(), SERVICE_ID));
+    }
+
+    protected void unsetMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        if (this.meterRegistryProvider == meterRegistryProvider) {
+            this.meterRegistryProvider = null;
+            setMetrics(new PersistenceMetrics(SERVICE_ID));
+        }
+    }
+
+    private void setMetrics(PersistenceMetrics metrics) {
+        metrics.gauge("buffer.size", "Values waiting in the write queue", writeQueue,
+                RRD4jWriteQueue::getQueueDepth);
+        metrics.counter("buffer.dropped", "Values dropped because the write queue was full", writeQueue,
+                RRD4jWriteQueue::getDroppedCount);
+        PersistenceMetrics oldMetrics = this.metrics;
+        this.metrics = metrics;
+        oldMetrics.close();
+    }
+
     @Override
     public String getId() {
-        return "rrd4j";
+        return SERVICE_ID;
     }
 
     @Override
@@ -131,98 +179,151 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     }
 
     @Override
-    public synchronized void store(final Item item, @Nullable final String alias) {
+    public void store(final Item item, @Nullable final String alias) {
         if (!isSupportedItemType(item)) {
             logger.trace("Ignoring item '{}' since its type {} is not supported", item.getName(), item.getType());
             return;
         }
         final String name = alias == null ? item.getName() : alias;
-        RrdDb db = getDB(name);
-        if (db != null) {
-            ConsolFun function = getConsolidationFunction(db);
-            long now = System.currentTimeMillis() / 1000;
-            if (function != ConsolFun.AVERAGE) {
-                try {
-                    // we store the last value again, so that the value change
-                    // in the database is not interpolated, but
-                    // happens right at this spot
-                    if (now - 1 > db.getLastUpdateTime()) {
-                        // only do it if there is not already a value
-                        double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
-                        if (!Double.isNaN(lastValue)) {
-                            Sample sample = db.createSample();
-                            sample.setTime(now - 1);
-                            sample.setValue(DATASOURCE_STATE, lastValue);
-                            sample.update();
-                            logger.debug("Stored '{}' as value '{}' in rrd4j database (again)", name, lastValue);
-                        }
-                    }
-                } catch (IOException e) {
-                    logger.debug("Error storing last value (again): {}", e.getMessage());
+        Double value = getValue(item);
+        if (value == null) {
+            return;
+        }
+        // the sample is written asynchronously, so that the caller does not wait for the file access
+        if (!writeQueue.offer(name, value, System.currentTimeMillis() / 1000)) {
+            long dropped = writeQueue.getDroppedCount();
+            if (dropped % DROPPED_LOG_INTERVAL == 1) {
+                logger.warn("Write queue is full, dropping value '{}' of '{}' ({} values dropped so far)", value, name,
+                        dropped);
+            }
+        }
+    }
+
+    private @Nullable Double getValue(final Item item) {
+        if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
+            NumberItem nItem = (NumberItem) item;
+            QuantityType<?> qState = (QuantityType<?>) item.getState();
+            Unit<? extends Quantity<?>> unit = nItem.getUnit();
+            if (unit != null) {
+                QuantityType<?> convertedState = qState.toUnit(unit);
+                if (convertedState != null) {
+                    return convertedState.doubleValue();
+                } else {
+                    logger.warn(
+                            "Failed to convert state '{}' to unit '{}'. Please check your item definition for correctness.",
+                            qState, unit);
+                    return null;
                 }
+            } else {
+                return qState.doubleValue();
             }
+        } else {
+            DecimalType state = item.getStateAs(DecimalType.class);
+            return state != null ? state.toBigDecimal().doubleValue() : null;
+        }
+    }
+
+    private void processWriteQueue() {
+        while (writeQueueRunning) {
             try {
-                Sample sample = db.createSample();
-                sample.setTime(now);
-
-                Double value = null;
-
-                if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
-                    NumberItem nItem = (NumberItem) item;
-                    QuantityType<?> qState = (QuantityType<?>) item.getState();
-                    Unit<? extends Quantity<?>> unit = nItem.getUnit();
-                    if (unit != null) {
-                        QuantityType<?> convertedState = qState.toUnit(unit);
-                        if (convertedState != null) {
-                            value = convertedState.doubleValue();
-                        } else {
-                            logger.warn(
-                                    "Failed to convert state '{}' to unit '{}'. Please check your item definition for correctness.",
-                                    qState, unit);
-                        }
-                    } else {
-                        value = qState.doubleValue();
-                    }
-                } else {
-                    DecimalType state = item.getStateAs(DecimalType.class);
-                    if (state != null) {
-                        value = state.toBigDecimal().doubleValue();
+                String name = writeQueue.poll(1, TimeUnit.SECONDS);
+                if (name != null) {
+                    flush(name);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Unexpected error while writing to rrd4j database: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void flush(final String name) {
+        RrdDb db;
+        while ((db = getDB(name)) != null) {
+            // lock only this item's database, so that other items can be written in parallel
+            synchronized (db) {
+                if (!db.isClosed()) {
+                    List<PendingSample> samples = writeQueue.remove(name);
+                    if (samples != null) {
+                        write(name, db, samples);
                     }
+                    return;
                 }
-                if (value != null) {
-                    if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
-                                                                                          // adjusted by stepsize
-                        value = value * db.getRrdDef().getStep();
+            }
+            // the handle has been evicted from the cache in the meantime, try again with a fresh one
+        }
+        // the database could not be opened or created, there is no point in keeping the samples
+        writeQueue.remove(name);
+    }
+
+    private void write(final String name, final RrdDb db, final List<PendingSample> samples) {
+        long startNanos = System.nanoTime();
+        int written = 0;
+        try {
+            long step = db.getHeader().getStep();
+            writeQueue.setStep(name, step);
+            boolean isCounter = db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER;
+            ConsolFun function = getConsolidationFunction(db);
+            long now = System.currentTimeMillis() / 1000;
+            for (int i = 0; i < samples.size(); i++) {
+                PendingSample pending = samples.get(i);
+                long lastUpdate = db.getLastUpdateTime();
+                // at least one second step is required between two updates
+                long time = Math.max(pending.timestamp, lastUpdate + 1);
+                if (time > now) {
+                    // we try to store the remaining values one second later
+                    List<PendingSample> remaining = new ArrayList<>(samples.subList(i, samples.size()));
+                    remaining.set(0, new PendingSample(pending.value, time, pending.enqueued));
+                    writeQueue.putBack(name, remaining);
+                    if (written > 0) {
+                        metrics.recordStore(startNanos, written);
+                    }
+                    try {
+                        scheduler.schedule(() -> writeQueue.requeue(name), 1, TimeUnit.SECONDS);
+                    } catch (RejectedExecutionException e) {
+                        // this happens if the system is shut down
+                        logger.debug("Dropping {} value(s) of '{}' during shutdown", remaining.size(), name);
                     }
-                    sample.setValue(DATASOURCE_STATE, value);
-                    sample.update();
-                    logger.debug("Stored '{}' as value '{}' in rrd4j database", name, value);
+                    return;
                 }
-            } catch (IllegalArgumentException e) {
-                String message = e.getMessage();
-                if (message != null && message.contains("at least one second step is required")) {
-                    // we try to store the value one second later
-                    ScheduledFuture<?> job = scheduledJobs.get(name);
-                    if (job != null) {
-                        job.cancel(true);
-                        scheduledJobs.remove(name);
+                if (function != ConsolFun.AVERAGE && time - 1 > lastUpdate) {
+                    // we store the last value again, so that the value change
+                    // in the database is not interpolated, but
+                    // happens right at this spot
+                    double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
+                    if (!Double.isNaN(lastValue)) {
+                        Sample sample = db.createSample();
+                        sample.setTime(time - 1);
+                        sample.setValue(DATASOURCE_STATE, lastValue);
+                        sample.update();
+                        logger.debug("Stored '{}' as value '{}' in rrd4j database (again)", name, lastValue);
                     }
-                    job = scheduler.schedule(() -> store(item, name), 1, TimeUnit.SECONDS);
-                    scheduledJobs.put(name, job);
-                } else {
-                    logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
                 }
-            } catch (Exception e) {
-                logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
-            }
-            try {
-                db.close();
-            } catch (IOException e) {
-                logger.debug("Error closing rrd4j database: {}", e.getMessage());
+                // counter values must be adjusted by stepsize
+                double value = isCounter ? pending.value * step : pending.value;
+                Sample sample = db.createSample();
+                sample.setTime(time);
+                sample.setValue(DATASOURCE_STATE, value);
+                sample.update();
+                writeQueue.flushed(pending);
+                written++;
+                logger.debug("Stored '{}' as value '{}' in rrd4j database", name, value);
             }
+            metrics.recordStore(startNanos, written);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+            metrics.storeFailed(samples.size() - written);
         }
     }
 
+    private void logWriteQueueStatistics() {
+        logger.debug("Write queue: {} value(s) pending, {} written, {} dropped, flush latency {} ms avg / {} ms max",
+                writeQueue.getQueueDepth(), writeQueue.getWrittenCount(), writeQueue.getDroppedCount(),
+                writeQueue.getAverageFlushLatency(), writeQueue.getMaxFlushLatency());
+    }
+
     @Override
     public void store(Item item) {
         store(item, null);
@@ -232,12 +333,6 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     public Iterable<HistoricItem> query(FilterCriteria filter) {
         String itemName = filter.getItemName();
 
-        RrdDb db = getDB(itemName);
-        if (db == null) {
-            logger.debug("Could not find item '{}' in rrd4j database", itemName);
-            return List.of();
-        }
-
         Item item = null;
         Unit<?> unit = null;
         try {
@@ -251,6 +346,27 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
             logger.debug("Could not find item '{}' in registry", itemName);
         }
 
+        long startNanos = System.nanoTime();
+        RrdDb db;
+        while ((db = getDB(itemName)) != null) {
+            synchronized (db) {
+                if (!db.isClosed()) {
+                    try {
+                        return metrics.recordQuery(startNanos, query(filter, db, item, unit));
+                    } catch (RuntimeException e) {
+                        metrics.queryFailed();
+                        throw e;
+                    }
+                }
+            }
+        }
+        logger.debug("Could not find item '{}' in rrd4j database", itemName);
+        return List.of();
+    }
+
+    private Iterable<HistoricItem> query(FilterCriteria filter, RrdDb db, @Nullable Item item,
+            @Nullable Unit<?> unit) {
+        String itemName = filter.getItemName();
         long start = 0L;
         long end = filter.getEndDate() == null ? System.currentTimeMillis() / 1000
                 : filter.getEndDate().toInstant().getEpochSecond();
@@ -304,6 +420,7 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
             return items;
         } catch (IOException e) {
             logger.warn("Could not query rrd4j database for item '{}': {}", itemName, e.getMessage());
+            metrics.queryFailed();
             return List.of();
         }
     }
@@ -313,13 +430,28 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         return Set.of();
     }
 
-    protected synchronized @Nullable RrdDb getDB(String alias) {
-        RrdDb db = null;
+    /**
+     * Get the (cached) database handle for an item. The returned handle is shared and must not be closed by the caller.
+     *
+     * @param alias the item name or alias
+     * @return the open database or <code>null</code> if it could not be opened or created
+     */
+    protected @Nullable RrdDb getDB(String alias) {
+        RrdDb db = databases.get(alias);
+        return db != null ? db : openDB(alias);
+    }
+
+    private synchronized @Nullable RrdDb openDB(String alias) {
+        RrdDb db = databases.get(alias);
+        if (db != null) {
+            // another thread opened it while we were waiting
+            return db;
+        }
         File file = new File(DB_FOLDER + File.separator + alias + ".rrd");
         try {
             if (file.exists()) {
                 // recreate the RrdDb instance from the file
-                db = RrdDb.of(file.getAbsolutePath());
+                db = RrdDb.getBuilder().setPath(file.getAbsolutePath()).setBackendFactory(backendFactory).build();
             } else {
                 File folder = new File(DB_FOLDER);
                 if (!folder.exists()) {
@@ -328,7 +460,7 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 RrdDef rrdDef = getRrdDef(alias, file);
                 if (rrdDef != null) {
                     // create a new database file
-                    db = RrdDb.of(rrdDef);
+                    db = RrdDb.getBuilder().setRrdDef(rrdDef).setBackendFactory(backendFactory).build();
                 } else {
                     logger.debug(
                             "Did not create rrd4j database for item '{}' since no rrd definition could be determined. This is likely due to an unsupported item type.",
@@ -341,6 +473,9 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
             // this happens if the system is shut down
             logger.debug("Could not create rrd4j database file '{}': {}", file.getAbsolutePath(), e.getMessage());
         }
+        if (db != null) {
+            databases.put(alias, db);
+        }
         return db;
     }
 
@@ -441,10 +576,38 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     @Activate
     protected void activate(final Map<String, Object> config) {
         modified(config);
+        for (int i = 0; i < WRITE_THREADS; i++) {
+            scheduler.execute(this::processWriteQueue);
+        }
+        if (logger.isDebugEnabled()) {
+            scheduler.scheduleWithFixedDelay(this::logWriteQueueStatistics, 1, 1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        // let the writers finish their current item instead of interrupting them, as an interrupt would close the
+        // underlying file channel
+        writeQueueRunning = false;
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.debug("Write queue did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // write everything that is still pending
+        writeQueue.getPendingItems().forEach(this::flush);
+        logWriteQueueStatistics();
+        databases.clear();
+        closeBackendFactory();
     }
 
     @Modified
     protected void modified(final Map<String, Object> config) {
+        configureDatabases(config);
+
         // clean existing definitions
         rrdDefs.clear();
 
@@ -501,6 +664,11 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 continue;
             }
 
+            if (key.equals(CONFIG_CACHE_SIZE) || key.equals(CONFIG_BACKEND) || key.equals(CONFIG_QUEUE_SIZE)) {
+                // already handled in configureDatabases
+                continue;
+            }
+
             String[] subkeys = key.split("\\.");
             if (subkeys.length != 2) {
                 logger.debug("config '{}' should have the format 'name.configkey'", key);
@@ -552,6 +720,60 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    private synchronized void configureDatabases(final Map<String, Object> config) {
+        int cacheSize = DEFAULT_CACHE_SIZE;
+        Object cacheSizeValue = config.get(CONFIG_CACHE_SIZE);
+        if (cacheSizeValue != null && !cacheSizeValue.toString().isBlank()) {
+            try {
+                cacheSize = Integer.parseInt(cacheSizeValue.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring illegal cache size '{}', using {}", cacheSizeValue, DEFAULT_CACHE_SIZE);
+            }
+        }
+        databases.setCapacity(cacheSize);
+
+        int queueSize = DEFAULT_QUEUE_SIZE;
+        Object queueSizeValue = config.get(CONFIG_QUEUE_SIZE);
+        if (queueSizeValue != null && !queueSizeValue.toString().isBlank()) {
+            try {
+                queueSize = Integer.parseInt(queueSizeValue.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring illegal queue size '{}', using {}", queueSizeValue, DEFAULT_QUEUE_SIZE);
+            }
+        }
+        writeQueue.setCapacity(queueSize);
+
+        Object backendValue = config.get(CONFIG_BACKEND);
+        String backend = backendValue == null ? "" : backendValue.toString().trim().toLowerCase();
+        if (!backend.equals(backendName)) {
+            // open handles belong to the old backend and need to be re-opened
+            databases.clear();
+            closeBackendFactory();
+            if (BACKEND_NIO.equals(backend)) {
+                backendFactory = new RrdNioBackendFactory();
+            } else if (BACKEND_FILE.equals(backend)) {
+                backendFactory = new RrdRandomAccessFileBackendFactory();
+            } else {
+                if (!backend.isEmpty()) {
+                    logger.warn("Unknown backend '{}', using the rrd4j default", backend);
+                }
+                backendFactory = RrdBackendFactory.getDefaultFactory();
+            }
+            backendName = backend;
+        }
+        logger.debug("Using backend '{}' and keeping up to {} databases open", backendFactory.getName(), cacheSize);
+    }
+
+    private void closeBackendFactory() {
+        if (backendFactory != RrdBackendFactory.getDefaultFactory()) {
+            try {
+                backendFactory.close();
+            } catch (IOException e) {
+                logger.debug("Error closing rrd4j backend: {}", e.getMessage());
+            }
+        }
+    }
+
     private class RrdArchiveDef {
         public @Nullable ConsolFun fcn;
         public double xff;
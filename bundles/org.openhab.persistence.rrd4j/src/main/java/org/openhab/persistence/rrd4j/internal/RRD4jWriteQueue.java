@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link RRD4jWriteQueue} buffers samples between {@link RRD4jPersistenceService#store} and the threads writing
+ * them to the databases.
+ *
+ * Samples are kept per item. A sample which falls into the same step as the previous pending sample of that item
+ * replaces it, so that only one update per step and item is written. An item is queued for writing at most once,
+ * regardless of the number of its pending samples.
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+class RRD4jWriteQueue {
+
+    /**
+     * A single value waiting to be written
+     */
+    static class PendingSample {
+        final double value;
+        final long timestamp;
+        final long enqueued;
+
+        PendingSample(double value, long timestamp, long enqueued) {
+            this.value = value;
+            this.timestamp = timestamp;
+            this.enqueued = enqueued;
+        }
+    }
+
+    private final Map<String, List<PendingSample>> pendingSamples = new HashMap<>();
+    private final Map<String, Long> steps = new HashMap<>();
+    private final BlockingQueue<String> pendingItems = new LinkedBlockingQueue<>();
+
+    private int capacity;
+    private int queuedSamples;
+    private long droppedSamples;
+    private long writtenSamples;
+    private long totalFlushLatency;
+    private long maxFlushLatency;
+
+    RRD4jWriteQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Add a sample for an item
+     *
+     * @param name the name of the database (item name or alias)
+     * @param value the value to store
+     * @param timestamp the sample time in seconds since epoch
+     * @return <code>false</code> if the queue is full and the sample was dropped
+     */
+    synchronized boolean offer(String name, double value, long timestamp) {
+        PendingSample sample = new PendingSample(value, timestamp, System.nanoTime());
+        List<PendingSample> samples = pendingSamples.get(name);
+        if (samples != null && !samples.isEmpty()) {
+            int last = samples.size() - 1;
+            long step = steps.getOrDefault(name, 1L);
+            PendingSample previous = samples.get(last);
+            if (previous.timestamp / step == timestamp / step) {
+                // coalesce with the pending sample of the same step, but keep the time it has been waiting
+                samples.set(last, new PendingSample(value, timestamp, previous.enqueued));
+                return true;
+            }
+        }
+        if (queuedSamples >= capacity) {
+            droppedSamples++;
+            return false;
+        }
+        if (samples == null) {
+            samples = new ArrayList<>();
+            pendingSamples.put(name, samples);
+            pendingItems.add(name);
+        }
+        samples.add(sample);
+        queuedSamples++;
+        return true;
+    }
+
+    /**
+     * Wait for the next item with pending samples
+     *
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return the name of the item or <code>null</code> if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Nullable
+    String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return pendingItems.poll(timeout, unit);
+    }
+
+    /**
+     * Take all pending samples of an item
+     *
+     * @param name the name of the database (item name or alias)
+     * @return the samples in chronological order or <code>null</code> if there are none
+     */
+    synchronized @Nullable List<PendingSample> remove(String name) {
+        List<PendingSample> samples = pendingSamples.remove(name);
+        if (samples != null) {
+            queuedSamples -= samples.size();
+        }
+        return samples;
+    }
+
+    /**
+     * Return samples that could not be written yet. They are written before any sample added in the meantime, but the
+     * item is not queued again, use {@link #requeue(String)} for that.
+     *
+     * @param name the name of the database (item name or alias)
+     * @param samples the samples to return
+     */
+    synchronized void putBack(String name, List<PendingSample> samples) {
+        List<PendingSample> merged = new ArrayList<>(samples);
+        List<PendingSample> newer = pendingSamples.get(name);
+        if (newer != null) {
+            merged.addAll(newer);
+        }
+        pendingSamples.put(name, merged);
+        queuedSamples += samples.size();
+    }
+
+    /**
+     * Queue an item for writing again
+     *
+     * @param name the name of the database (item name or alias)
+     */
+    void requeue(String name) {
+        pendingItems.add(name);
+    }
+
+    /**
+     * Get all items with pending samples, including those which are not queued at the moment
+     *
+     * @return the item names
+     */
+    synchronized Set<String> getPendingItems() {
+        return Set.copyOf(pendingSamples.keySet());
+    }
+
+    /**
+     * Set the step of an item's database, which determines which samples are coalesced
+     *
+     * @param name the name of the database (item name or alias)
+     * @param step the step in seconds
+     */
+    synchronized void setStep(String name, long step) {
+        steps.put(name, step);
+    }
+
+    /**
+     * Record that a sample has been written
+     *
+     * @param sample the written sample
+     */
+    synchronized void flushed(PendingSample sample) {
+        long latency = System.nanoTime() - sample.enqueued;
+        writtenSamples++;
+        totalFlushLatency += latency;
+        maxFlushLatency = Math.max(maxFlushLatency, latency);
+    }
+
+    synchronized void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * @return the number of samples waiting to be written
+     */
+    synchronized int getQueueDepth() {
+        return queuedSamples;
+    }
+
+    /**
+     * @return the number of samples dropped because the queue was full
+     */
+    synchronized long getDroppedCount() {
+        return droppedSamples;
+    }
+
+    /**
+     * @return the number of samples written to the databases
+     */
+    synchronized long getWrittenCount() {
+        return writtenSamples;
+    }
+
+    /**
+     * @return the average time between queuing and writing a sample in milliseconds
+     */
+    synchronized long getAverageFlushLatency() {
+        return writtenSamples == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalFlushLatency / writtenSamples);
+    }
+
+    /**
+     * @return the maximum time between queuing and writing a sample in milliseconds
+     */
+    synchronized long getMaxFlushLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxFlushLatency);
+    }
+}
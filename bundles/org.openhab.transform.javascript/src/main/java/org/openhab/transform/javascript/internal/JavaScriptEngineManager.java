@@ -17,9 +17,20 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.script.Bindings;
 import javax.script.Compilable;
 import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
@@ -27,6 +38,7 @@ import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.transform.TransformationException;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
@@ -35,6 +47,10 @@ import org.slf4j.LoggerFactory;
 /**
  * Simple cache for compiled JavaScript files.
  *
+ * <p>
+ * Cached scripts are looked up without locking. A file is compiled once, threads asking for it while it is being
+ * compiled wait for that compilation. The {@link TransformationScriptWatcher} removes changed files from the cache.
+ *
  * @author Thomas Kordelle - Initial contribution
  * @author Thomas Kordelle - pre compiled scripts
  */
@@ -44,47 +60,162 @@ public class JavaScriptEngineManager {
 
     private final Logger logger = LoggerFactory.getLogger(JavaScriptEngineManager.class);
     private final ScriptEngineManager manager = new ScriptEngineManager();
-    /* keep memory foot print low. max 2 concurrent threads are estimated */
-    private final Map<String, CompiledScript> compiledScriptMap = new ConcurrentHashMap<>(4, 0.5f, 2);
+    private final Map<String, CompletableFuture<CachedScript>> compiledScriptMap = new ConcurrentHashMap<>();
+    private final AtomicLong compileCount = new AtomicLong();
 
     /**
-     * Get a pre compiled script {@link CompiledScript} from cache. If it is not in the cache, then load it from
+     * Get a pre compiled script {@link CachedScript} from cache. If it is not in the cache, then load it from
      * storage and put a pre compiled version into the cache.
      *
      * @param filename name of the JavaScript file to load
-     * @return a pre compiled script {@link CompiledScript}
+     * @return a pre compiled script {@link CachedScript}
      * @throws TransformationException if compile of JavaScript failed
      */
-    protected CompiledScript getScript(final String filename) throws TransformationException {
-        synchronized (compiledScriptMap) {
-            CompiledScript compiledScript = compiledScriptMap.get(filename);
-            if (compiledScript != null) {
-                logger.debug("Loading JavaScript {} from cache.", filename);
-                return compiledScript;
-            } else {
-                final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
-                logger.debug("Loading script {} from storage ", path);
-                try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(reader);
-                    logger.debug("Putting compiled JavaScript {} to cache.", cScript);
-                    compiledScriptMap.put(filename, cScript);
-                    return cScript;
-                } catch (IOException | ScriptException e) {
-                    throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(),
-                            e);
+    protected CachedScript getScript(final String filename) throws TransformationException {
+        CompletableFuture<CachedScript> future = compiledScriptMap.get(filename);
+        if (future == null) {
+            CompletableFuture<CachedScript> newFuture = new CompletableFuture<>();
+            future = compiledScriptMap.putIfAbsent(filename, newFuture);
+            if (future == null) {
+                future = newFuture;
+                try {
+                    newFuture.complete(compile(filename));
+                } catch (TransformationException e) {
+                    // do not cache failures, the file may be fixed without the watcher noticing it
+                    compiledScriptMap.remove(filename, newFuture);
+                    newFuture.completeExceptionally(e);
+                    throw e;
                 }
             }
         }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TransformationException) {
+                throw (TransformationException) cause;
+            }
+            throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransformationException("Interrupted while loading JavaScript " + filename, e);
+        }
+    }
+
+    private CachedScript compile(final String filename) throws TransformationException {
+        final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
+        logger.debug("Loading script {} from storage ", path);
+        try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
+            final ScriptEngine engine = manager.getEngineByName("javascript");
+            final CompiledScript cScript = ((Compilable) engine).compile(reader);
+            compileCount.incrementAndGet();
+            logger.debug("Putting compiled JavaScript {} to cache.", cScript);
+            return new CachedScript(cScript);
+        } catch (IOException | ScriptException e) {
+            throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(), e);
+        }
     }
 
     /**
      * remove a pre compiled script from cache.
      *
-     * @param fileName name of the script file to remove
+     * @param fileName name of the script file to remove, relative to the transformation folder
      */
     protected void removeFromCache(String fileName) {
         logger.debug("Removing JavaScript {} from cache.", fileName);
         compiledScriptMap.remove(fileName);
     }
+
+    /**
+     * remove a pre compiled script from cache.
+     *
+     * @param path path of the script file to remove
+     */
+    protected void removeFromCache(Path path) {
+        Path folder = Paths.get(TransformationScriptWatcher.TRANSFORM_FOLDER).toAbsolutePath().normalize();
+        Path file = path.toAbsolutePath().normalize();
+        if (!file.startsWith(folder)) {
+            logger.debug("Ignoring file {} outside of {}.", file, folder);
+            return;
+        }
+        String relativePath = folder.relativize(file).toString();
+        removeFromCache(relativePath);
+        if (File.separatorChar != '/') {
+            removeFromCache(relativePath.replace(File.separatorChar, '/'));
+        }
+    }
+
+    /**
+     * @return the number of files compiled so far
+     */
+    long getCompileCount() {
+        return compileCount.get();
+    }
+
+    /**
+     * A compiled script together with a small pool of {@link Bindings} to evaluate it. Creating bindings creates a
+     * new global scope, so they are reused as long as an evaluation leaves no globals behind. The pool is released
+     * together with the cache entry.
+     */
+    protected static class CachedScript {
+        private static final int MAX_POOLED_SCOPES = Runtime.getRuntime().availableProcessors();
+
+        private final CompiledScript script;
+        private final BlockingQueue<Scope> scopes = new ArrayBlockingQueue<>(MAX_POOLED_SCOPES);
+
+        CachedScript(CompiledScript script) {
+            this.script = script;
+        }
+
+        /**
+         * Evaluates the script with the given variables
+         *
+         * @param variables the variables to inject into the script
+         * @return the result of the script
+         * @throws ScriptException if the evaluation failed
+         */
+        public @Nullable Object eval(Map<String, String> variables) throws ScriptException {
+            Scope scope = scopes.poll();
+            if (scope == null) {
+                scope = new Scope(script.getEngine().createBindings());
+            }
+            scope.bindings.putAll(variables);
+            try {
+                return script.eval(scope.bindings);
+            } finally {
+                if (scope.reset()) {
+                    scopes.offer(scope);
+                }
+            }
+        }
+    }
+
+    /**
+     * Global scope of an evaluation, together with the keys it had when it was created.
+     */
+    private static class Scope {
+        private final Bindings bindings;
+        private final Set<String> initialKeys;
+
+        Scope(Bindings bindings) {
+            this.bindings = bindings;
+            this.initialKeys = new HashSet<>(bindings.keySet());
+        }
+
+        /**
+         * Removes all keys added since the scope was created. Top-level variables and functions declared by a script
+         * cannot be removed, the scope must not be reused then.
+         *
+         * @return true if the scope is back in its initial state
+         */
+        boolean reset() {
+            for (String key : new ArrayList<>(bindings.keySet())) {
+                if (!initialKeys.contains(key)) {
+                    bindings.remove(key);
+                }
+            }
+            return initialKeys.containsAll(bindings.keySet());
+        }
+    }
 }
@@ -26,8 +26,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import javax.script.Bindings;
-import javax.script.CompiledScript;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -111,11 +109,9 @@ public class JavaScriptTransformationService implements TransformationService, C
         String result = "";
 
         try {
-            final CompiledScript cScript = manager.getScript(fn);
-            final Bindings bindings = cScript.getEngine().createBindings();
-            bindings.put(SCRIPT_DATA_WORD, source);
-            vars.forEach((k, v) -> bindings.put(k, v));
-            result = String.valueOf(cScript.eval(bindings));
+            final Map<String, String> variables = new LinkedHashMap<>(vars);
+            variables.put(SCRIPT_DATA_WORD, source);
+            result = String.valueOf(manager.getScript(fn).eval(variables));
             return result;
         } catch (ScriptException e) {
             throw new TransformationException("An error occurred while executing script. " + e.getMessage(), e);
@@ -62,7 +62,6 @@ public class TransformationScriptWatcher extends AbstractWatchService {
         return new Kind<?>[] { ENTRY_DELETE, ENTRY_MODIFY };
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     protected void processWatchEvent(WatchEvent<?> event, Kind<?> kind, Path path) {
         logger.debug("New watch event {} for path {}.", kind, path);
@@ -71,11 +70,8 @@ public class TransformationScriptWatcher extends AbstractWatchService {
             return;
         }
 
-        final WatchEvent<Path> ev = (WatchEvent<Path>) event;
-        final Path filename = ev.context();
+        logger.debug("Reloading javascript file {}.", path);
 
-        logger.debug("Reloading javascript file {}.", filename);
-
-        manager.removeFromCache(filename.toString());
+        manager.removeFromCache(path);
     }
 }
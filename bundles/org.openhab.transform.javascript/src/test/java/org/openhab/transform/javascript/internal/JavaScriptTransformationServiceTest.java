@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Comparator;
 import java.util.stream.Stream;
 
@@ -46,6 +47,7 @@ public class JavaScriptTransformationServiceTest {
 
     private @Mock BundleContext bundleContext;
 
+    private JavaScriptEngineManager manager;
     private TestableJavaScriptTransformationService processor;
 
     private class TestableJavaScriptTransformationService extends JavaScriptTransformationService {
@@ -56,7 +58,7 @@ public class JavaScriptTransformationServiceTest {
 
     @BeforeEach
     public void setUp() throws IOException {
-        JavaScriptEngineManager manager = new JavaScriptEngineManager();
+        manager = new JavaScriptEngineManager();
         processor = new TestableJavaScriptTransformationService(manager);
         copyDirectory(SRC_FOLDER, CONFIG_FOLDER);
     }
@@ -149,4 +151,63 @@ public class JavaScriptTransformationServiceTest {
         String transformedResponse = processor.transform(SCRIPT, DATA);
         assertEquals("ab?d&f", transformedResponse);
     }
+
+    @Test
+    public void testScriptIsCompiledOnce() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("3", processor.transform("readme.js", "foo bar baz"));
+            assertEquals("111", processor.transform("sum.js?a=10&b=1", "100"));
+        }
+
+        assertEquals(2, manager.getCompileCount());
+    }
+
+    @Test
+    public void testChangedScriptIsCompiledAgain() throws Exception {
+        final Path script = Paths.get(TransformationScriptWatcher.TRANSFORM_FOLDER, "test_changed.js");
+        try {
+            Files.writeString(script, "input + '1'");
+            assertEquals("a1", processor.transform("test_changed.js", "a"));
+
+            Files.writeString(script, "input + '2'", StandardOpenOption.TRUNCATE_EXISTING);
+            assertEquals("a1", processor.transform("test_changed.js", "a"));
+
+            manager.removeFromCache(script);
+            assertEquals("a2", processor.transform("test_changed.js", "a"));
+            assertEquals(2, manager.getCompileCount());
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    @Test
+    public void testVariablesAreNotKeptBetweenTransformations() throws Exception {
+        assertEquals("x", processor.transform("returntest.js?a=1&test=x", "foo"));
+
+        assertThrows(TransformationException.class, () -> processor.transform("returntest.js", "foo"));
+    }
+
+    @Test
+    public void testGlobalsAreNotKeptBetweenTransformations() throws Exception {
+        final Path script = Paths.get(TransformationScriptWatcher.TRANSFORM_FOLDER, "test_globals.js");
+        try {
+            Files.writeString(script, "var r; if (input > 5) r = 'HIGH'; r");
+            assertEquals("HIGH", processor.transform("test_globals.js", "10"));
+            assertEquals("null", processor.transform("test_globals.js", "1"));
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    @Test
+    public void testImplicitGlobalsAreNotKeptBetweenTransformations() throws Exception {
+        final Path script = Paths.get(TransformationScriptWatcher.TRANSFORM_FOLDER, "test_implicit_globals.js");
+        try {
+            Files.writeString(script, "count = (typeof count === 'undefined' ? 0 : count) + 1; '' + count");
+            assertEquals("1", processor.transform("test_implicit_globals.js", "a"));
+            assertEquals("1", processor.transform("test_implicit_globals.js", "a"));
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
 }
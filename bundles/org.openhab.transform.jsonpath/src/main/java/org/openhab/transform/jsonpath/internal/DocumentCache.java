@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.jsonpath.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.jayway.jsonpath.DocumentContext;
+
+/**
+ * LRU of parsed documents by their source. A parsed document takes memory in proportion to the length of its source,
+ * so the cache is bounded by the total length of the cached sources. Sources longer than the whole budget are not
+ * cached.
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+class DocumentCache {
+    private final Map<String, DocumentContext> documents = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxLength;
+    private long length;
+
+    /**
+     * @param maxLength maximum total length of the cached sources, in characters
+     */
+    DocumentCache(long maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    synchronized @Nullable DocumentContext get(String source) {
+        return documents.get(source);
+    }
+
+    synchronized void put(String source, DocumentContext document) {
+        if (source.length() > maxLength) {
+            return;
+        }
+        if (documents.put(source, document) == null) {
+            length += source.length();
+        }
+        // the new entry is the most recently used, so it is not evicted itself
+        Iterator<String> eldest = documents.keySet().iterator();
+        while (length > maxLength) {
+            length -= eldest.next().length();
+            eldest.remove();
+        }
+    }
+
+    synchronized int size() {
+        return documents.size();
+    }
+
+    synchronized long length() {
+        return length;
+    }
+}
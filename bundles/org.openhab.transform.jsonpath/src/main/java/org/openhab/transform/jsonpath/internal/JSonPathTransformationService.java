@@ -12,7 +12,11 @@
  */
 package org.openhab.transform.jsonpath.internal;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -24,6 +28,7 @@ import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
@@ -33,6 +38,10 @@ import com.jayway.jsonpath.PathNotFoundException;
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by JSonPath Expressions.
  *
+ * Compiled expressions and the last parsed documents, up to a total source length of 512k characters, are kept, so
+ * that applying several expressions to the same source, e.g. for the channels of one HTTP or MQTT thing, parses it
+ * only once.
+ *
  * @author Gaël L'hopital
  * @author Sebastian Janzen
  *
@@ -41,8 +50,15 @@ import com.jayway.jsonpath.PathNotFoundException;
 @Component(property = { "openhab.transform=JSONPATH" })
 public class JSonPathTransformationService implements TransformationService {
 
+    private static final int PATH_CACHE_SIZE = 256;
+    // total length of the cached sources, in characters
+    private static final int DOCUMENT_CACHE_LENGTH = 512 * 1024;
+
     private final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+    private final Map<String, JsonPath> compiledPaths = Collections.synchronizedMap(new LruMap<>(PATH_CACHE_SIZE));
+    private final DocumentCache parsedDocuments = new DocumentCache(DOCUMENT_CACHE_LENGTH);
+
     /**
      * Transforms the input <code>source</code> by JSonPath expression.
      *
@@ -59,8 +75,32 @@ public class JSonPathTransformationService implements TransformationService {
 
         logger.debug("about to transform '{}' by the function '{}'", source, jsonPathExpression);
 
+        return transform(jsonPathExpression, source, parse(source));
+    }
+
+    /**
+     * Transforms the input <code>source</code> by several JSonPath expressions, parsing it only once.
+     *
+     * @param jsonPathExpressions JsonPath expressions
+     * @param source String which contains JSON
+     * @return the results by expression, in the order of the expressions
+     * @throws TransformationException If the source is no valid JSON or one of the expressions is invalid or does not
+     *             match.
+     */
+    public Map<String, @Nullable String> transform(Collection<String> jsonPathExpressions, String source)
+            throws TransformationException {
+        DocumentContext document = parse(source);
+        Map<String, @Nullable String> results = new LinkedHashMap<>();
+        for (String jsonPathExpression : jsonPathExpressions) {
+            results.put(jsonPathExpression, transform(jsonPathExpression, source, document));
+        }
+        return results;
+    }
+
+    private @Nullable String transform(String jsonPathExpression, String source, DocumentContext document)
+            throws TransformationException {
         try {
-            Object transformationResult = JsonPath.read(source, jsonPathExpression);
+            Object transformationResult = document.read(compile(jsonPathExpression));
             logger.debug("transformation resulted in '{}'", transformationResult);
             if (transformationResult == null) {
                 return null;
@@ -71,11 +111,37 @@ public class JSonPathTransformationService implements TransformationService {
             }
         } catch (PathNotFoundException e) {
             throw new TransformationException("Invalid path '" + jsonPathExpression + "' in '" + source + "'");
-        } catch (InvalidPathException | InvalidJsonException e) {
+        } catch (InvalidPathException e) {
             throw new TransformationException("An error occurred while transforming JSON expression.", e);
         }
     }
 
+    private JsonPath compile(String jsonPathExpression) {
+        JsonPath path = compiledPaths.get(jsonPathExpression);
+        if (path == null) {
+            // compiled outside of the lock, two threads may compile the same expression
+            path = JsonPath.compile(jsonPathExpression);
+            compiledPaths.put(jsonPathExpression, path);
+        }
+        return path;
+    }
+
+    /**
+     * The parsed documents are only read, so they can be shared between threads.
+     */
+    private DocumentContext parse(String source) throws TransformationException {
+        DocumentContext document = parsedDocuments.get(source);
+        if (document == null) {
+            try {
+                document = JsonPath.parse(source);
+            } catch (InvalidJsonException e) {
+                throw new TransformationException("An error occurred while transforming JSON expression.", e);
+            }
+            parsedDocuments.put(source, document);
+        }
+        return document;
+    }
+
     private String flattenList(List<?> list) {
         if (list.size() == 1) {
             return list.get(0).toString();
@@ -100,4 +166,20 @@ public class JSonPathTransformationService implements TransformationService {
     private String createStringList(List<?> list) {
         return list.stream().map(n -> "\"" + String.valueOf(n) + "\"").collect(Collectors.joining(", ", "[", "]"));
     }
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
 }
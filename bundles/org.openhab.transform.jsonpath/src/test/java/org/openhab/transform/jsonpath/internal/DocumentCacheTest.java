@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.jsonpath.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+public class DocumentCacheTest {
+
+    private static String document(int length) {
+        String prefix = "{\"v\":\"";
+        String suffix = "\"}";
+        return prefix + "x".repeat(length - prefix.length() - suffix.length()) + suffix;
+    }
+
+    private static DocumentContext put(DocumentCache cache, String source) {
+        DocumentContext document = JsonPath.parse(source);
+        cache.put(source, document);
+        return document;
+    }
+
+    @Test
+    public void testDocumentOfTwentyKilobytesIsKept() {
+        DocumentCache cache = new DocumentCache(512 * 1024);
+        String source = document(20 * 1024);
+        DocumentContext document = put(cache, source);
+
+        assertSame(document, cache.get(new String(source)));
+        assertEquals(source.length(), cache.length());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedDocumentsAreEvictedByLength() {
+        DocumentCache cache = new DocumentCache(100);
+        String first = document(40);
+        String second = document(41);
+        String third = document(42);
+        put(cache, first);
+        put(cache, second);
+        // use the first one, so the second one is the least recently used
+        assertNotNull(cache.get(first));
+
+        put(cache, third);
+
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+        assertEquals(2, cache.size());
+        assertEquals(first.length() + third.length(), cache.length());
+    }
+
+    @Test
+    public void testSeveralDocumentsAreEvictedForALargeOne() {
+        DocumentCache cache = new DocumentCache(100);
+        put(cache, document(30));
+        put(cache, document(31));
+        put(cache, document(32));
+        String large = document(90);
+        put(cache, large);
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(large));
+        assertEquals(90, cache.length());
+    }
+
+    @Test
+    public void testDocumentLargerThanTheCacheIsNotKept() {
+        DocumentCache cache = new DocumentCache(100);
+        String small = document(30);
+        put(cache, small);
+        put(cache, document(101));
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(small));
+    }
+
+    @Test
+    public void testReplacingADocumentKeepsTheLength() {
+        DocumentCache cache = new DocumentCache(100);
+        String source = document(30);
+        put(cache, source);
+        DocumentContext replacement = put(cache, new String(source));
+
+        assertEquals(1, cache.size());
+        assertEquals(30, cache.length());
+        assertSame(replacement, cache.get(source));
+    }
+}
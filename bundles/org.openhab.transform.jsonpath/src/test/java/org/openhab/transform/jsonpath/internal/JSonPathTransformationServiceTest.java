@@ -14,6 +14,9 @@ package org.openhab.transform.jsonpath.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.core.transform.TransformationException;
@@ -127,4 +130,37 @@ public class JSonPathTransformationServiceTest {
         String transformedResponse = processor.transform("$.data", json);
         assertEquals(list, transformedResponse);
     }
+
+    @Test
+    public void testMultiplePaths() throws TransformationException {
+        Map<String, String> results = processor.transform(List.of("$[1].name", "$[0].id", "$[0].empty"), jsonArray);
+        assertEquals(List.of("$[1].name", "$[0].id", "$[0].empty"), List.copyOf(results.keySet()));
+        assertEquals("alice", results.get("$[1].name"));
+        assertEquals("1", results.get("$[0].id"));
+        assertNull(results.get("$[0].empty"));
+    }
+
+    @Test
+    public void testMultiplePathsWithMismatch() {
+        assertThrows(TransformationException.class,
+                () -> processor.transform(List.of("$[0].name", "$[5].id"), jsonArray));
+    }
+
+    @Test
+    public void testRepeatedTransformsOfChangingSources() throws TransformationException {
+        for (int i = 0; i < 20; i++) {
+            String json = "{\"data\":{\"value\":" + i + "}}";
+            assertEquals(String.valueOf(i), processor.transform("$.data.value", json));
+            // the same content in a new string
+            assertEquals(String.valueOf(i), processor.transform("$.data.value", new String(json)));
+        }
+    }
+
+    @Test
+    public void testInvalidPathAfterValidPaths() throws TransformationException {
+        assertEquals("bob", processor.transform("$[0].name", jsonArray));
+        assertThrows(TransformationException.class, () -> processor.transform("$$", jsonArray));
+        assertThrows(TransformationException.class, () -> processor.transform("$$", jsonArray));
+        assertEquals("bob", processor.transform("$[0].name", jsonArray));
+    }
 }
@@ -16,7 +16,10 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
@@ -35,13 +38,17 @@ import org.slf4j.LoggerFactory;
  * <p>
  * The implementation of {@link TransformationService} which simply maps strings to other strings
  *
+ * <p>
+ * A map file is loaded into an unmodifiable hash map, which is replaced as a whole when the file changes. Lookups
+ * therefore need no synchronization.
+ *
  * @author Kai Kreuzer - Initial contribution and API
  * @author Gaël L'hopital - Make it localizable
  */
 @NonNullByDefault
 @Component(service = { TransformationService.class, ConfigOptionProvider.class }, property = {
         "openhab.transform=MAP" })
-public class MapTransformationService extends AbstractFileTransformationService<Properties>
+public class MapTransformationService extends AbstractFileTransformationService<Map<String, String>>
         implements ConfigOptionProvider {
 
     private final Logger logger = LoggerFactory.getLogger(MapTransformationService.class);
@@ -56,16 +63,17 @@ public class MapTransformationService extends AbstractFileTransformationService<
      * a file which is stored under the 'configurations/transform' folder. This file should be in property syntax, i.e.
      * simple lines with "key=value" pairs. To organize the various transformations one might use subfolders.
      *
-     * @param properties the list of properties which contains the key value pairs for the mapping.
+     * @param mapping the key value pairs of the mapping.
      * @param source the input to transform
      * @return the transformed result or null if the transformation couldn't be completed for any reason.
      */
     @Override
-    protected @Nullable String internalTransform(Properties properties, String source) throws TransformationException {
-        String target = properties.getProperty(source);
+    protected @Nullable String internalTransform(Map<String, String> mapping, String source)
+            throws TransformationException {
+        String target = mapping.get(source);
 
         if (target == null) {
-            target = properties.getProperty("");
+            target = mapping.get("");
             if (target == null) {
                 throw new TransformationException("Target value not found in map for '" + source + "'");
             }
@@ -76,11 +84,16 @@ public class MapTransformationService extends AbstractFileTransformationService<
     }
 
     @Override
-    protected Properties internalLoadTransform(String filename) throws TransformationException {
-        Properties result = new Properties();
+    protected Map<String, String> internalLoadTransform(String filename) throws TransformationException {
+        Properties properties = new Properties();
         try (FileReader reader = new FileReader(filename)) {
-            result.load(reader);
-            return result;
+            properties.load(reader);
+            Map<String, String> result = new HashMap<>();
+            for (String key : properties.stringPropertyNames()) {
+                result.put(key, properties.getProperty(key));
+            }
+            // Map.copyOf() probes linearly, which is several times slower for keys with similar hash codes
+            return Collections.unmodifiableMap(result);
         } catch (IOException e) {
             throw new TransformationException("An error occurred while opening file.", e);
         }
@@ -24,6 +24,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Comparator;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Callable;
 import java.util.stream.Stream;
@@ -198,4 +199,12 @@ public class MapTransformationServiceTest {
         }
         assertion.call();
     }
+
+    @Test
+    public void testLoadedMappingIsImmutable() throws Exception {
+        Map<String, String> mapping = processor.internalLoadTransform(USED_FILENAME);
+
+        assertEquals("zu", mapping.get(SOURCE_CLOSED));
+        assertThrows(UnsupportedOperationException.class, () -> mapping.put(SOURCE_CLOSED, "changevalue"));
+    }
 }
@@ -12,17 +12,32 @@
  */
 package org.openhab.transform.regex.internal;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by Regular Expressions.
@@ -30,6 +45,10 @@ import org.slf4j.LoggerFactory;
  * <p>
  * <b>Note:</b> the given Regular Expression must contain exactly one group!
  *
+ * <p>
+ * The compiled patterns of the last 500 expressions are cached. The cache hits and misses are published in the openHAB
+ * metrics registry, if it is available.
+ *
  * @author Thomas.Eichstaedt-Engelen
  */
 @NonNullByDefault
@@ -40,6 +59,47 @@ public class RegExTransformationService implements TransformationService {
 
     private static final Pattern SUBSTR_PATTERN = Pattern.compile("^s/(.*?[^\\\\])/(.*?[^\\\\])/(.*)$");
 
+    private static final int MAX_CACHE_SIZE = 500;
+    private static final String METRICS_PREFIX = "openhab.transform.regex.cache.";
+
+    private final Map<String, CompiledRegex> cache = Collections.synchronizedMap(new LruMap<>(MAX_CACHE_SIZE));
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    private @Nullable MeterRegistryProvider meterRegistryProvider;
+    private @Nullable MeterRegistry meterRegistry;
+    private final List<Meter> meters = new ArrayList<>();
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected synchronized void setMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        removeMeters();
+        this.meterRegistryProvider = meterRegistryProvider;
+        MeterRegistry meterRegistry = meterRegistryProvider.getOHMeterRegistry();
+        this.meterRegistry = meterRegistry;
+        meters.add(FunctionCounter.builder(METRICS_PREFIX + "hits", cacheHits, AtomicLong::get)
+                .description("Transformations which used a cached pattern").register(meterRegistry));
+        meters.add(FunctionCounter.builder(METRICS_PREFIX + "misses", cacheMisses, AtomicLong::get)
+                .description("Transformations which compiled their pattern").register(meterRegistry));
+        meters.add(Gauge.builder(METRICS_PREFIX + "size", cache, Map::size).description("Cached patterns")
+                .register(meterRegistry));
+    }
+
+    protected synchronized void unsetMeterRegistryProvider(MeterRegistryProvider meterRegistryProvider) {
+        if (this.meterRegistryProvider == meterRegistryProvider) {
+            removeMeters();
+            this.meterRegistryProvider = null;
+        }
+    }
+
+    private void removeMeters() {
+        MeterRegistry meterRegistry = this.meterRegistry;
+        if (meterRegistry != null) {
+            meters.forEach(meterRegistry::remove);
+            this.meterRegistry = null;
+        }
+        meters.clear();
+    }
+
     @Override
     public @Nullable String transform(String regExpression, String source) throws TransformationException {
         if (regExpression == null || source == null) {
@@ -50,23 +110,19 @@ public class RegExTransformationService implements TransformationService {
 
         String result = "";
 
-        Matcher substMatcher = SUBSTR_PATTERN.matcher(regExpression);
-        if (substMatcher.matches()) {
+        CompiledRegex compiled = getCompiledRegex(regExpression);
+        String substitution = compiled.substitution;
+        if (substitution != null) {
             logger.debug("Using substitution form of regex transformation");
-            String regex = substMatcher.group(1);
-            String substitution = substMatcher.group(2);
-            String options = substMatcher.group(3);
-            if (options.equals("g")) {
-                result = source.trim().replaceAll(regex, substitution);
+            Matcher substMatcher = compiled.pattern.matcher(source.trim());
+            if (compiled.global) {
+                return substMatcher.replaceAll(substitution);
             } else {
-                result = source.trim().replaceFirst(regex, substitution);
-            }
-            if (result != null) {
-                return result;
+                return substMatcher.replaceFirst(substitution);
             }
         }
 
-        Matcher matcher = Pattern.compile("^" + regExpression + "$", Pattern.DOTALL).matcher(source.trim());
+        Matcher matcher = compiled.pattern.matcher(source.trim());
         if (!matcher.matches()) {
             logger.debug(
                     "the given regex '^{}$' doesn't match the given content '{}' -> couldn't compute transformation",
@@ -94,4 +150,71 @@ public class RegExTransformationService implements TransformationService {
 
         return result;
     }
+
+    /**
+     * @return the number of transformations which used a cached pattern
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return the number of transformations which compiled their pattern
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    private CompiledRegex getCompiledRegex(String regExpression) {
+        CompiledRegex compiled = cache.get(regExpression);
+        if (compiled != null) {
+            cacheHits.incrementAndGet();
+            return compiled;
+        }
+        cacheMisses.incrementAndGet();
+        // compiled outside of the lock, a concurrent miss of the same expression just compiles it twice
+        compiled = compile(regExpression);
+        cache.put(regExpression, compiled);
+        return compiled;
+    }
+
+    private CompiledRegex compile(String regExpression) {
+        Matcher substMatcher = SUBSTR_PATTERN.matcher(regExpression);
+        if (substMatcher.matches()) {
+            String regex = substMatcher.group(1);
+            String substitution = substMatcher.group(2);
+            String options = substMatcher.group(3);
+            return new CompiledRegex(Pattern.compile(regex), substitution, options.equals("g"));
+        }
+        return new CompiledRegex(Pattern.compile("^" + regExpression + "$", Pattern.DOTALL), null, false);
+    }
+
+    private static class CompiledRegex {
+        final Pattern pattern;
+        final @Nullable String substitution;
+        final boolean global;
+
+        CompiledRegex(Pattern pattern, @Nullable String substitution, boolean global) {
+            this.pattern = pattern;
+            this.substitution = substitution;
+            this.global = global;
+        }
+    }
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            // expressions are usually configured, so this only happens if they are built from changing values
+            return size() > maxSize;
+        }
+    }
 }
@@ -13,11 +13,16 @@
 package org.openhab.transform.regex.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
 import org.openhab.core.transform.TransformationException;
 
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * @author Thomas.Eichstaedt-Engelen
  */
@@ -75,4 +80,50 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("varX=12 varY=54 ", transformedResponse);
     }
+
+    @Test
+    public void testCompiledPatternsAreReused() throws TransformationException {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("8", processor.transform(".*?<current_conditions>.*?<temp_c data=\"(.*?)\".*", source));
+            assertEquals("x_=_1", processor.transform("s/\\s+/_/g", " x = 1 "));
+        }
+
+        assertEquals(2, processor.getCacheMisses());
+        assertEquals(4, processor.getCacheHits());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPatternIsEvicted() throws TransformationException {
+        processor.transform("(0)", "0");
+        for (int i = 1; i < 500; i++) {
+            processor.transform("(" + i + ")", "0");
+        }
+        // uses the first expression, so the second one is the least recently used
+        processor.transform("(0)", "0");
+        processor.transform("(500)", "0");
+
+        processor.transform("(0)", "0");
+        assertEquals(2, processor.getCacheHits());
+        processor.transform("(1)", "0");
+        assertEquals(502, processor.getCacheMisses());
+    }
+
+    @Test
+    public void testCacheMetricsArePublished() throws TransformationException {
+        CompositeMeterRegistry registry = new CompositeMeterRegistry();
+        registry.add(new SimpleMeterRegistry());
+        MeterRegistryProvider meterRegistryProvider = mock(MeterRegistryProvider.class);
+        when(meterRegistryProvider.getOHMeterRegistry()).thenReturn(registry);
+        processor.setMeterRegistryProvider(meterRegistryProvider);
+
+        processor.transform("s/\\s+/_/g", " x = 1 ");
+        processor.transform("s/\\s+/_/g", " x = 1 ");
+
+        assertEquals(1, registry.get("openhab.transform.regex.cache.hits").functionCounter().count());
+        assertEquals(1, registry.get("openhab.transform.regex.cache.misses").functionCounter().count());
+        assertEquals(1, registry.get("openhab.transform.regex.cache.size").gauge().value());
+
+        processor.unsetMeterRegistryProvider(meterRegistryProvider);
+        assertTrue(registry.getMeters().isEmpty());
+    }
 }
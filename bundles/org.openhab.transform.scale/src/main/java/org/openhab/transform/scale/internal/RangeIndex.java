@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Lookup structure for the ranges of a scale file.
+ *
+ * <p>
+ * The bounds of all ranges split the number line into elementary segments: the bounds themselves and the open
+ * intervals between them. Every range either contains a segment completely or not at all, so the value of the first
+ * matching range is resolved once per segment when the index is built. A lookup is then a binary search over the
+ * sorted bounds, independent of the number of ranges and of the order they were defined in.
+ *
+ * @author openHAB contributors - Initial contribution
+ */
+@NonNullByDefault
+class RangeIndex {
+
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    /** sorted, distinct bounds of all ranges */
+    private final BigDecimal[] bounds;
+    /** value for a number equal to <code>bounds[i]</code> */
+    private final @Nullable String[] boundValues;
+    /** value for a number between <code>bounds[i - 1]</code> and <code>bounds[i]</code>, exclusive */
+    private final @Nullable String[] gapValues;
+
+    /**
+     * @param ranges the ranges and their values, in the order they should be evaluated
+     */
+    RangeIndex(Map<Range, String> ranges) {
+        TreeSet<BigDecimal> sortedBounds = new TreeSet<>();
+        for (Range range : ranges.keySet()) {
+            if (range.min != null) {
+                sortedBounds.add(range.min);
+            }
+            if (range.max != null) {
+                sortedBounds.add(range.max);
+            }
+        }
+        bounds = sortedBounds.toArray(new BigDecimal[0]);
+        boundValues = new String[bounds.length];
+        gapValues = new String[bounds.length + 1];
+
+        for (int i = 0; i < bounds.length; i++) {
+            boundValues[i] = firstMatch(ranges, bounds[i]);
+        }
+        for (int i = 0; i <= bounds.length; i++) {
+            gapValues[i] = firstMatch(ranges, gapSample(i));
+        }
+    }
+
+    /**
+     * @return the value of the first range containing <code>value</code>, or <code>null</code> if there is none
+     */
+    @Nullable
+    String get(BigDecimal value) {
+        int index = Arrays.binarySearch(bounds, value);
+        return index >= 0 ? boundValues[index] : gapValues[-index - 1];
+    }
+
+    /**
+     * @return a number within the gap before <code>bounds[index]</code>
+     */
+    private BigDecimal gapSample(int index) {
+        if (bounds.length == 0) {
+            return BigDecimal.ZERO;
+        } else if (index == 0) {
+            return bounds[0].subtract(BigDecimal.ONE);
+        } else if (index == bounds.length) {
+            return bounds[index - 1].add(BigDecimal.ONE);
+        }
+        return bounds[index - 1].add(bounds[index]).divide(TWO);
+    }
+
+    private static @Nullable String firstMatch(Map<Range, String> ranges, BigDecimal value) {
+        for (Map.Entry<Range, String> entry : ranges.entrySet()) {
+            if (entry.getKey().contains(value)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -14,7 +14,10 @@ package org.openhab.transform.scale.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.measure.quantity.Dimensionless;
 
@@ -153,4 +156,35 @@ public class ScaleTransformServiceTest {
         String transformedResponse = processor.transform(existingscale, source);
         assertEquals("", transformedResponse);
     }
+
+    @Test
+    public void testRangeIndexWithManyRanges() {
+        Map<Range, String> ranges = new LinkedHashMap<>();
+        // overlaps all following ranges, so it must win for values up to 5
+        ranges.put(Range.atMost(new BigDecimal(5)), "low");
+        for (int i = 0; i < 500; i++) {
+            ranges.put(Range.closedOpen(new BigDecimal(i), new BigDecimal(i + 1)), "r" + i);
+        }
+        ranges.put(Range.all(), "other");
+        RangeIndex index = new RangeIndex(ranges);
+
+        assertEquals("low", index.get(new BigDecimal(-3)));
+        assertEquals("low", index.get(new BigDecimal("5.0")));
+        assertEquals("r5", index.get(new BigDecimal("5.5")));
+        assertEquals("r250", index.get(new BigDecimal(250)));
+        assertEquals("r499", index.get(new BigDecimal("499.999")));
+        assertEquals("other", index.get(new BigDecimal(500)));
+    }
+
+    @Test
+    public void testRangeIndexWithoutMatch() {
+        Map<Range, String> ranges = new LinkedHashMap<>();
+        ranges.put(Range.open(BigDecimal.ZERO, BigDecimal.TEN), "inside");
+        RangeIndex index = new RangeIndex(ranges);
+
+        assertNull(index.get(BigDecimal.ZERO));
+        assertEquals("inside", index.get(BigDecimal.ONE));
+        assertNull(index.get(BigDecimal.TEN));
+        assertNull(new RangeIndex(new LinkedHashMap<>()).get(BigDecimal.ONE));
+    }
 }
@@ -14,6 +14,12 @@ package org.openhab.transform.xslt.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.core.transform.TransformationException;
@@ -38,4 +44,25 @@ public class XsltTransformationServiceTest extends AbstractTransformationService
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @Test
+    public void testChangedStylesheetIsCompiledAgain() throws TransformationException, IOException {
+        Path file = Paths.get("conf", "transform", "test_changed.xsl");
+        try {
+            Files.writeString(file, stylesheet("//temp_c/@data"), StandardCharsets.UTF_8);
+            assertEquals("8", processor.transform("test_changed.xsl", source));
+            assertEquals("8", processor.transform("test_changed.xsl", source));
+
+            Files.writeString(file, stylesheet("//current_conditions/temp_f/@data"), StandardCharsets.UTF_8);
+            assertEquals("46", processor.transform("test_changed.xsl", source));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private String stylesheet(String select) {
+        return "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+                + "<xsl:output method=\"text\"/><xsl:template match=\"/\"><xsl:value-of select=\"" + select
+                + "\"/></xsl:template></xsl:stylesheet>";
+    }
 }